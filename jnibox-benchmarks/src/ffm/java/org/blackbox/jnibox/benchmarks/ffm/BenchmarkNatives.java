@@ -0,0 +1,44 @@
+package org.blackbox.jnibox.benchmarks.ffm;
+
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniRepositoryException;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.blackbox.jnibox.ffm.JniLibrarySymbols;
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * The native library of the benchmark, built with the module, stored and loaded once per JVM.
+ * The downcall handles are static final, so the JIT inlines them like a JNI native method.
+ */
+final class BenchmarkNatives {
+
+    static final String LIBRARY_PACKAGE = "org.blackbox.jnibox.benchmarks.ffm";
+    static final String LIBRARY_NAME = "libjniboxbench.so";
+
+    private static final FunctionDescriptor ADD = FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT);
+
+    static final MethodHandle DOWNCALL_ADD;
+    static final MethodHandle CRITICAL_ADD;
+
+    static {
+        TempDirJniRepository jniRepository = new TempDirJniRepository();
+        try {
+            JniLibrary library = jniRepository.storeAndLoad(LIBRARY_PACKAGE, LIBRARY_NAME);
+            JniLibrarySymbols symbols = JniLibrarySymbols.of(library);
+            DOWNCALL_ADD = symbols.downcallHandle("jnibox_add", ADD);
+            CRITICAL_ADD = symbols.downcallHandle("jnibox_add", ADD, Linker.Option.critical(false));
+        } catch (JniRepositoryException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> jniRepository.closeAsync().join()));
+    }
+
+    private BenchmarkNatives() {
+    }
+
+    static native int add(int a, int b);
+}
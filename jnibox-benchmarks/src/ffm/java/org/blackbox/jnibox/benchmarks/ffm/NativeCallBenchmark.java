@@ -0,0 +1,37 @@
+package org.blackbox.jnibox.benchmarks.ffm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a call to a trivial C function of a library loaded by jnibox: as a JNI native method,
+ * as a downcall handle of JniLibrarySymbols, and as a critical downcall handle that skips the
+ * thread state transition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+public class NativeCallBenchmark {
+
+    public int a = 2;
+    public int b = 3;
+
+    @Benchmark
+    public int jni() {
+        return BenchmarkNatives.add(a, b);
+    }
+
+    @Benchmark
+    public int downcall() throws Throwable {
+        return (int) BenchmarkNatives.DOWNCALL_ADD.invokeExact(a, b);
+    }
+
+    @Benchmark
+    public int criticalDowncall() throws Throwable {
+        return (int) BenchmarkNatives.CRITICAL_ADD.invokeExact(a, b);
+    }
+}
@@ -0,0 +1,76 @@
+package org.blackbox.jnibox.benchmarks;
+
+import org.blackbox.jnibox.JniLibraryLoader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Fake libraries for the benchmarks: random content written as a file or packed in a jar with a
+ * class loader to find it as a classpath resource.
+ */
+final class BenchmarkLibraries {
+
+    static final String LIBRARY_PACKAGE = "org.blackbox.jnibox.benchmarks.generated";
+
+    /**
+     * Loader that does not load anything, so the benchmarks measure jnibox and not System.load.
+     */
+    static final JniLibraryLoader STUB_LOADER = libraryPath -> {
+        // do nothing, it is a stub
+    };
+
+    private BenchmarkLibraries() {
+    }
+
+    static File createLibrary(File directory, String libraryName, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        File library = new File(directory, libraryName);
+        Files.write(library.toPath(), content);
+        return library;
+    }
+
+    static File createJar(File directory, File library, boolean stored) throws IOException {
+        byte[] content = Files.readAllBytes(library.toPath());
+        File jar = new File(directory, library.getName() + (stored ? "-stored" : "-deflated") + ".jar");
+        try (OutputStream out = new FileOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            ZipEntry entry = new ZipEntry(LIBRARY_PACKAGE.replace('.', '/') + '/' + library.getName());
+            if (stored) {
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.length);
+                entry.setCompressedSize(content.length);
+                entry.setCrc(crc.getValue());
+            }
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        }
+        return jar;
+    }
+
+    static ClassLoader classLoader(File jar) throws IOException {
+        return new URLClassLoader(new URL[]{jar.toURI().toURL()}, BenchmarkLibraries.class.getClassLoader());
+    }
+
+    static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,102 @@
+package org.blackbox.jnibox.benchmarks;
+
+import org.blackbox.jnibox.CachedJniRepository;
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniRepository;
+import org.blackbox.jnibox.JniRepositoryException;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of storing one library, by size of the library, by source of the library (a file, a
+ * STORED jar entry or a DEFLATED jar entry found in the classpath) and by repository. Every
+ * invocation stores the library in a new repository.
+ *
+ * The TEMP_DIR repository copies the library every time. The CACHED repository shares its cache
+ * directory along the trial, so after the first invocation it measures the verification of an
+ * already extracted library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    private static final String LIBRARY_NAME = "libextraction.so";
+
+    public enum Source {
+        FILE,
+        JAR_STORED,
+        JAR_DEFLATED
+    }
+
+    public enum Repository {
+        TEMP_DIR,
+        CACHED
+    }
+
+    @Param({"10240", "1048576", "10485760", "209715200"})
+    public int size;
+
+    @Param
+    public Source source;
+
+    @Param
+    public Repository repository;
+
+    private File workDirectory;
+    private File library;
+    private ClassLoader classLoader;
+    private JniRepository jniRepository;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        workDirectory = Files.createTempDirectory("jnibox-extraction").toFile();
+        library = BenchmarkLibraries.createLibrary(workDirectory, LIBRARY_NAME, size);
+        if (source != Source.FILE) {
+            classLoader = BenchmarkLibraries.classLoader(
+                    BenchmarkLibraries.createJar(workDirectory, library, source == Source.JAR_STORED));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        if (repository == Repository.CACHED) {
+            jniRepository = new CachedJniRepository(new File(workDirectory, "cache"), BenchmarkLibraries.STUB_LOADER);
+        } else {
+            jniRepository = new TempDirJniRepository(BenchmarkLibraries.STUB_LOADER);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws JniRepositoryException {
+        jniRepository.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        BenchmarkLibraries.delete(workDirectory);
+    }
+
+    @Benchmark
+    public JniLibrary store() throws JniRepositoryException {
+        if (source == Source.FILE) {
+            return jniRepository.store(library.getAbsolutePath(), BenchmarkLibraries.LIBRARY_PACKAGE, LIBRARY_NAME);
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            return jniRepository.store(BenchmarkLibraries.LIBRARY_PACKAGE, LIBRARY_NAME);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+}
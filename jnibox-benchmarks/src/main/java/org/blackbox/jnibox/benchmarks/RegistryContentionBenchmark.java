@@ -0,0 +1,63 @@
+package org.blackbox.jnibox.benchmarks;
+
+import org.blackbox.jnibox.JniRepository;
+import org.blackbox.jnibox.JniRepositoryException;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the reads of the library registry from many threads: load of libraries that
+ * are already loaded and size of the repository. Run it with different thread counts (-t) to
+ * see how it scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(Threads.MAX)
+public class RegistryContentionBenchmark {
+
+    @Param({"64"})
+    public int libraries;
+
+    private File workDirectory;
+    private String[] libraryNames;
+    private JniRepository jniRepository;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, JniRepositoryException {
+        workDirectory = Files.createTempDirectory("jnibox-registry").toFile();
+        File library = BenchmarkLibraries.createLibrary(workDirectory, "libregistry.so", 1024);
+        jniRepository = new TempDirJniRepository(BenchmarkLibraries.STUB_LOADER);
+        libraryNames = new String[libraries];
+        for (int i = 0; i < libraries; i++) {
+            libraryNames[i] = "libregistry" + i + ".so";
+            jniRepository.storeAndLoad(library.getAbsolutePath(), BenchmarkLibraries.LIBRARY_PACKAGE, libraryNames[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, JniRepositoryException {
+        jniRepository.close();
+        BenchmarkLibraries.delete(workDirectory);
+    }
+
+    @Benchmark
+    public void load() throws JniRepositoryException {
+        String libraryName = libraryNames[ThreadLocalRandom.current().nextInt(libraryNames.length)];
+        jniRepository.load(BenchmarkLibraries.LIBRARY_PACKAGE, libraryName);
+    }
+
+    @Benchmark
+    public int size() {
+        return jniRepository.size();
+    }
+}
@@ -0,0 +1,68 @@
+package org.blackbox.jnibox.benchmarks;
+
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniRepository;
+import org.blackbox.jnibox.JniRepositoryException;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of storeAndLoad of a small classpath library in a new repository, with a stub loader
+ * so System.load is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreAndLoadBenchmark {
+
+    private static final String LIBRARY_NAME = "libstoreandload.so";
+
+    @Param({"65536"})
+    public int size;
+
+    private File workDirectory;
+    private ClassLoader classLoader;
+    private JniRepository jniRepository;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        workDirectory = Files.createTempDirectory("jnibox-storeandload").toFile();
+        File library = BenchmarkLibraries.createLibrary(workDirectory, LIBRARY_NAME, size);
+        classLoader = BenchmarkLibraries.classLoader(BenchmarkLibraries.createJar(workDirectory, library, true));
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        jniRepository = new TempDirJniRepository(BenchmarkLibraries.STUB_LOADER);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws JniRepositoryException {
+        jniRepository.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        BenchmarkLibraries.delete(workDirectory);
+    }
+
+    @Benchmark
+    public JniLibrary storeAndLoad() throws JniRepositoryException {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            return jniRepository.storeAndLoad(BenchmarkLibraries.LIBRARY_PACKAGE, LIBRARY_NAME);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.blackbox.jnibox.cli;
+
+import org.blackbox.jnibox.ConfigurableJniRepository;
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniLibraryManifest;
+import org.blackbox.jnibox.JniPlatform;
+import org.blackbox.jnibox.JniRepositoryException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line tool that extracts the native libraries of some packages of a classpath to a
+ * directory, with the same store of the repositories, and writes the jnibox index of the
+ * directory, so a ReadOnlyJniRepository can use it later without extracting anything:
+ *
+ * jnibox extract --target /opt/app/natives [--classpath app.jar:lib.jar] [--platform linux-x86_64-musl] org.company.natives...
+ *
+ * The platform is the one of the running JVM by default.
+ */
+public final class JniBoxCli {
+
+    private static final String USAGE = "Usage: jnibox extract --target <directory> [--classpath <path>]"
+            + " [--platform <os>-<arch>[-<libc>]] <libraryPackage>...";
+
+    private JniBoxCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length == 0 || !"extract".equals(args[0])) {
+            err.println(USAGE);
+            return 2;
+        }
+        File target = null;
+        String classpath = null;
+        JniPlatform platform = JniPlatform.current();
+        List<String> libraryPackages = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--") && i + 1 == args.length) {
+                err.println("Missing value of " + arg);
+                err.println(USAGE);
+                return 2;
+            }
+            if ("--target".equals(arg)) {
+                target = new File(args[++i]);
+            } else if ("--classpath".equals(arg)) {
+                classpath = args[++i];
+            } else if ("--platform".equals(arg)) {
+                platform = parsePlatform(args[++i]);
+                if (platform == null) {
+                    err.println("Invalid platform " + args[i]);
+                    return 2;
+                }
+            } else if (arg.startsWith("--")) {
+                err.println("Unknown option " + arg);
+                err.println(USAGE);
+                return 2;
+            } else {
+                libraryPackages.add(arg);
+            }
+        }
+        if (target == null || libraryPackages.isEmpty()) {
+            err.println(USAGE);
+            return 2;
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            if (classpath != null) {
+                thread.setContextClassLoader(classLoader(classpath));
+            }
+            extract(target, platform, libraryPackages, out);
+            return 0;
+        } catch (JniRepositoryException | IOException e) {
+            err.println("Extraction failed: " + e.getMessage());
+            e.printStackTrace(err);
+            return 1;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void extract(File target, JniPlatform platform, List<String> libraryPackages, PrintStream out)
+            throws JniRepositoryException, IOException {
+        ExtractionRepository jniRepository = new ExtractionRepository(target);
+        jniRepository.setPlatform(platform);
+        for (String libraryPackage : libraryPackages) {
+            for (JniLibrary jniLibrary : jniRepository.storeAll(libraryPackage)) {
+                out.println(jniLibrary.getLibraryPath());
+            }
+        }
+        File manifestFile = new File(target, JniLibraryManifest.LOCATION);
+        JniLibraryManifest.scan(target, libraryPackages).write(manifestFile);
+        out.println(manifestFile.getPath());
+    }
+
+    private static JniPlatform parsePlatform(String platform) {
+        String[] parts = platform.split("-");
+        if (parts.length == 2) {
+            return JniPlatform.of(parts[0], parts[1], "linux".equals(parts[0]) ? JniPlatform.GNU : null);
+        } else if (parts.length == 3) {
+            return JniPlatform.of(parts[0], parts[1], parts[2]);
+        }
+        return null;
+    }
+
+    private static ClassLoader classLoader(String classpath) throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), JniBoxCli.class.getClassLoader());
+    }
+
+    /**
+     * Repository that keeps its directory, the extracted libraries are the output of the tool.
+     */
+    private static final class ExtractionRepository extends ConfigurableJniRepository {
+
+        private ExtractionRepository(File repositoryDirectory) {
+            super(repositoryDirectory);
+        }
+
+        @Override
+        protected void cleanRepositoryDirectory() {
+            // the extracted libraries are kept
+        }
+
+        @Override
+        protected Runnable cleanupAction() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.blackbox.jnibox.cli;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniLibraryLoader;
+import org.blackbox.jnibox.JniLibraryManifest;
+import org.blackbox.jnibox.ReadOnlyJniRepository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+public class JniBoxCliTest {
+
+    private static final String LIBRARY_PACKAGE = "org.blackbox.jnibox.cli.test";
+
+    private File classpathDirectory;
+    private File target;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @Before
+    public void setup() throws IOException {
+        classpathDirectory = Files.createTempDir();
+        target = Files.createTempDir();
+        File packageDirectory = new File(classpathDirectory, LIBRARY_PACKAGE.replace('.', '/'));
+        write(new File(packageDirectory, "genericMockLibrary"), "generic");
+        write(new File(packageDirectory, "linux-x86_64/platformMockLibrary"), "linux-x86_64");
+        write(new File(packageDirectory, "linux-x86_64-musl/platformMockLibrary"), "linux-x86_64-musl");
+        write(new File(packageDirectory, "linux-aarch64/platformMockLibrary"), "linux-aarch64");
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(classpathDirectory);
+        FileUtils.deleteDirectory(target);
+    }
+
+    @Test
+    public void extractPlatform() throws Exception {
+        Assert.assertEquals(0, run("extract", "--target", target.getPath(), "--classpath", classpathDirectory.getPath(),
+                "--platform", "linux-x86_64-musl", LIBRARY_PACKAGE));
+        Assert.assertEquals("", err.toString("UTF-8"));
+
+        // the platform directories are flattened, only the best variant is extracted
+        File packageDirectory = new File(target, LIBRARY_PACKAGE.replace('.', '/'));
+        Assert.assertEquals("linux-x86_64-musl", read(new File(packageDirectory, "platformMockLibrary")));
+        Assert.assertEquals("generic", read(new File(packageDirectory, "genericMockLibrary")));
+        Assert.assertFalse(new File(packageDirectory, "linux-x86_64-musl").exists());
+        Assert.assertFalse(new File(packageDirectory, "linux-aarch64").exists());
+
+        File manifestFile = new File(target, JniLibraryManifest.LOCATION);
+        Assert.assertTrue(out.toString("UTF-8").contains(manifestFile.getPath()));
+        try (InputStream stream = new FileInputStream(manifestFile)) {
+            JniLibraryManifest manifest = JniLibraryManifest.read(stream);
+            Assert.assertEquals(new HashSet<>(Arrays.asList("platformMockLibrary", "genericMockLibrary")),
+                    manifest.getLibraryNames(LIBRARY_PACKAGE, null));
+            Assert.assertEquals("linux-x86_64-musl".length(),
+                    manifest.find(LIBRARY_PACKAGE, "platformMockLibrary", null).getSize());
+        }
+
+        ReadOnlyJniRepository jniRepository = new ReadOnlyJniRepository(target, new IdleJniLibraryLoader());
+        Map<String, String> libraryPaths = new HashMap<>();
+        for (JniLibrary jniLibrary : jniRepository.storeAll(LIBRARY_PACKAGE)) {
+            libraryPaths.put(jniLibrary.getLibraryName(), jniLibrary.getLibraryPath());
+        }
+        jniRepository.close();
+        Assert.assertEquals(new File(packageDirectory, "platformMockLibrary").getAbsolutePath(),
+                libraryPaths.get("platformMockLibrary"));
+        Assert.assertEquals(new File(packageDirectory, "genericMockLibrary").getAbsolutePath(),
+                libraryPaths.get("genericMockLibrary"));
+    }
+
+    @Test
+    public void defaultLibcOfLinux() throws Exception {
+        Assert.assertEquals(0, run("extract", "--target", target.getPath(), "--classpath", classpathDirectory.getPath(),
+                "--platform", "linux-x86_64", LIBRARY_PACKAGE));
+        File packageDirectory = new File(target, LIBRARY_PACKAGE.replace('.', '/'));
+        Assert.assertEquals("linux-x86_64", read(new File(packageDirectory, "platformMockLibrary")));
+    }
+
+    @Test
+    public void usage() throws Exception {
+        Assert.assertEquals(2, run());
+        Assert.assertEquals(2, run("unpack", "--target", target.getPath(), LIBRARY_PACKAGE));
+        Assert.assertEquals(2, run("extract", LIBRARY_PACKAGE));
+        Assert.assertEquals(2, run("extract", "--target", target.getPath()));
+        Assert.assertEquals(2, run("extract", "--target", target.getPath(), "--verbose", LIBRARY_PACKAGE));
+        Assert.assertEquals(2, run("extract", LIBRARY_PACKAGE, "--target"));
+        Assert.assertEquals(2, run("extract", "--target", target.getPath(), "--platform", "linux", LIBRARY_PACKAGE));
+        Assert.assertTrue(err.toString("UTF-8").contains("Usage: jnibox extract"));
+        Assert.assertTrue(err.toString("UTF-8").contains("Invalid platform linux"));
+        Assert.assertEquals("", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void extractionFailure() throws Exception {
+        // the target cannot be created under a regular file
+        File file = new File(target, "file");
+        write(file, "file");
+        File unwritableTarget = new File(file, "natives");
+        Assert.assertEquals(1, run("extract", "--target", unwritableTarget.getPath(), "--classpath", classpathDirectory.getPath(),
+                "--platform", "linux-x86_64", LIBRARY_PACKAGE));
+        Assert.assertTrue(err.toString("UTF-8").contains("Extraction failed"));
+        Assert.assertFalse(new File(unwritableTarget, JniLibraryManifest.LOCATION).exists());
+    }
+
+    private int run(String... args) {
+        try (PrintStream outStream = new PrintStream(out, true);
+             PrintStream errStream = new PrintStream(err, true)) {
+            return JniBoxCli.run(args, outStream, errStream);
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(content, file, StandardCharsets.UTF_8);
+    }
+
+    private static String read(File file) throws IOException {
+        return Files.toString(file, StandardCharsets.UTF_8);
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
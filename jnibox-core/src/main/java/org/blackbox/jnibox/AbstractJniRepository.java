@@ -1,14 +1,23 @@
 package org.blackbox.jnibox;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-import com.google.common.io.Resources;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
+import javax.management.JMException;
 import java.io.*;
+import java.lang.ref.Cleaner;
 import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class encapsulates the logic of the JniRepository. The repository Directory is delegated
@@ -20,7 +29,81 @@ abstract class AbstractJniRepository implements JniRepository {
 
     private final JniLibraryLoader jniLibraryLoader;
 
-    private final Table<String, String, JniLibrary> libraries;
+    /**
+     * Registry of the libraries. A library is reserved with putIfAbsent in DECLARED status and
+     * is published when its status changes to STORED. Concurrent callers of the same library
+     * share its store and its loading (see storing and loading). Reads never lock.
+     */
+    private final ConcurrentMap<JniLibraryId, JniLibrary> libraries;
+
+    private volatile Executor executor;
+
+    private volatile boolean resolveDependencies;
+
+    private volatile LibraryCloning cloning = LibraryCloning.COPY;
+
+    private volatile JniPlatform platform;
+
+    /**
+     * Platform index of every package of every class loader, built on the first store of a
+     * library of the package from the class loader when the platform resolution is enabled. The
+     * class loaders are weakly referenced.
+     */
+    private final LoadingCache<ClassLoader, ConcurrentMap<String, PlatformIndex>> platformIndexes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, ConcurrentMap<String, PlatformIndex>>() {
+                @Override
+                public ConcurrentMap<String, PlatformIndex> load(ClassLoader classLoader) {
+                    return new ConcurrentHashMap<>();
+                }
+            });
+
+    /**
+     * The jnibox indexes of every class loader, read once. The class loaders are weakly
+     * referenced, so the indexes of an undeployed application do not keep it in memory.
+     */
+    private final LoadingCache<ClassLoader, JniLibraryManifest> manifests = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, JniLibraryManifest>() {
+                @Override
+                public JniLibraryManifest load(ClassLoader classLoader) throws IOException {
+                    return JniLibraryManifest.load(classLoader);
+                }
+            });
+
+    /**
+     * Listeners of the repository, copied on write so that the store and loading only read the
+     * array, and do not even read the clock when it is empty.
+     */
+    private volatile JniRepositoryListener[] listeners = NO_LISTENERS;
+
+    private JniRepositoryStatistics statistics;
+
+    /**
+     * Cleanup of the files of the repository if it becomes unreachable without being closed,
+     * registered on the first store.
+     */
+    private volatile Cleanup cleanup;
+
+    /**
+     * Startup profile recorded by the stores and loadings of the application, null until it is
+     * enabled (see enableStartupProfile).
+     */
+    private volatile StartupProfile startupProfile;
+
+    /**
+     * Quota of the stored files, null if they are not bounded (see setQuota).
+     */
+    private volatile LibraryQuota quota;
+
+    private static final JniRepositoryListener[] NO_LISTENERS = new JniRepositoryListener[0];
+
+    /**
+     * Runs the synchronous operations in the thread of the caller.
+     */
+    private static final Executor CALLER = Runnable::run;
+
+    private static final Cleaner CLEANER = Cleaner.create();
 
     protected AbstractJniRepository(File repositoryDirectory) {
         this(repositoryDirectory, JniLibraryLoader.SYSTEM);
@@ -34,7 +117,7 @@ abstract class AbstractJniRepository implements JniRepository {
         if (!this.repositoryDirectory.exists()) {
             repositoryDirectory.mkdirs();
         }
-        libraries = HashBasedTable.create();
+        libraries = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -47,19 +130,13 @@ abstract class AbstractJniRepository implements JniRepository {
 
         Preconditions.checkNotNull(libraryName);
         Preconditions.checkNotNull(libraryPackage);
-        Preconditions.checkArgument(!libraries.contains(libraryPackage, libraryName), "Library with package " + libraryPackage + " and name " + libraryName + " is already stored.");
-
-        checkStore(libraryPackage, libraryName);
 
-        try {
-            String localLibraryParentPath = libraryPackage.replace('.', File.separatorChar);
-            String localLibraryPath = localLibraryParentPath + File.separator + libraryName;
-            URL localLibraryUrl = Resources.getResource(localLibraryPath);
-            safeStore(localLibraryUrl.openStream(), libraryPackage, libraryName);
-            return libraries.get(libraryPackage, libraryName);
-        } catch (Exception e) {
-            throw new JniRepositoryException(e);
+        JniLibrary library = await(storing(reserve(libraryPackage, libraryName), resourceSource(libraryPackage, libraryName), CALLER));
+        if (library.storedSource instanceof FileSource) {
+            throw new JniRepositoryException("Library " + library + " is already stored from "
+                    + ((FileSource) library.storedSource).file + ", not from the classpath.");
         }
+        return library;
     }
 
     @Override
@@ -68,17 +145,116 @@ abstract class AbstractJniRepository implements JniRepository {
         Preconditions.checkNotNull(libraryPath);
         Preconditions.checkNotNull(libraryName);
         Preconditions.checkNotNull(libraryPackage);
-        Preconditions.checkArgument(!libraries.contains(libraryPackage, libraryName), "Library with package " + libraryPackage + " and name " + libraryName + " is already stored.");
 
-        checkStore(libraryPackage, libraryName);
+        FileSource source = new FileSource(new File(libraryPath));
+        JniLibrary library = await(storing(reserve(libraryPackage, libraryName), source, CALLER));
+        if (!source.equals(library.storedSource)) {
+            throw new JniRepositoryException("Library " + library + " is already stored from another source than "
+                    + source.file + ".");
+        }
+        return library;
+    }
 
-        try{
-            File libraryFile = new File(libraryPath);
-            safeStore(new FileInputStream(libraryFile), libraryPackage, libraryName);
-            return libraries.get(libraryPackage, libraryName);
-        } catch (Exception e) {
-            throw new JniRepositoryException(e);
+    @Override
+    public JniLibrary declare(String libraryPackage, String libraryName) {
+
+        Preconditions.checkNotNull(libraryName);
+        Preconditions.checkNotNull(libraryPackage);
+
+        return declare(reserve(libraryPackage, libraryName), resourceSource(libraryPackage, libraryName));
+    }
+
+    @Override
+    public JniLibrary declare(String libraryPath, String libraryPackage, String libraryName) {
+
+        Preconditions.checkNotNull(libraryPath);
+        Preconditions.checkNotNull(libraryName);
+        Preconditions.checkNotNull(libraryPackage);
+
+        return declare(reserve(libraryPackage, libraryName), new FileSource(new File(libraryPath)));
+    }
+
+    @Override
+    public Set<JniLibrary> declareAll(Collection<JniLibraryId> libraryIds) {
+
+        Preconditions.checkNotNull(libraryIds);
+
+        Set<JniLibrary> declared = new LinkedHashSet<>();
+        for (JniLibraryId libraryId : libraryIds) {
+            declared.add(declare(libraryId.getLibraryPackage(), libraryId.getLibraryName()));
+        }
+        return declared;
+    }
+
+    @Override
+    public Set<JniLibrary> storeAll(Collection<JniLibraryId> libraryIds) throws JniRepositoryException {
+        return bulk(libraryIds, false);
+    }
+
+    @Override
+    public Set<JniLibrary> storeAll(String libraryPackage) throws JniRepositoryException {
+        return bulk(findLibraries(libraryPackage, contextClassLoader()), false);
+    }
+
+    @Override
+    public Set<JniLibrary> storeAndLoadAll(Collection<JniLibraryId> libraryIds) throws JniRepositoryException {
+        return bulk(libraryIds, true);
+    }
+
+    @Override
+    public Set<JniLibrary> storeAndLoadAll(String libraryPackage) throws JniRepositoryException {
+        return bulk(findLibraries(libraryPackage, contextClassLoader()), true);
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> storeAsync(String libraryPackage, String libraryName) {
+        return storeAsync(libraryPackage, libraryName, getExecutor());
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> storeAsync(String libraryPackage, String libraryName, Executor executor) {
+
+        Preconditions.checkNotNull(libraryName);
+        Preconditions.checkNotNull(libraryPackage);
+        Preconditions.checkNotNull(executor);
+
+        return storing(reserve(libraryPackage, libraryName), resourceSource(libraryPackage, libraryName), executor);
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> loadAsync(String libraryPackage, String libraryName) {
+        return loadAsync(libraryPackage, libraryName, getExecutor());
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> loadAsync(String libraryPackage, String libraryName, Executor executor) {
+
+        Preconditions.checkNotNull(executor);
+
+        JniLibrary jniLibrary = libraries.get(new JniLibraryId(libraryPackage, libraryName));
+        if (jniLibrary == null) {
+            CompletableFuture<JniLibrary> notFound = new CompletableFuture<>();
+            notFound.completeExceptionally(new JniLibraryNotFoundException(libraryPackage, libraryName));
+            return notFound;
         }
+        return loading(jniLibrary, executor);
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> storeAndLoadAsync(String libraryPackage, String libraryName) {
+        return storeAndLoadAsync(libraryPackage, libraryName, getExecutor());
+    }
+
+    @Override
+    public CompletableFuture<JniLibrary> storeAndLoadAsync(String libraryPackage, String libraryName, Executor executor) {
+
+        Preconditions.checkNotNull(libraryName);
+        Preconditions.checkNotNull(libraryPackage);
+        Preconditions.checkNotNull(executor);
+
+        JniLibrary jniLibrary = reserve(libraryPackage, libraryName);
+        storing(jniLibrary, resourceSource(libraryPackage, libraryName), executor);
+        return loading(jniLibrary, executor);
     }
 
     @Override
@@ -86,15 +262,14 @@ abstract class AbstractJniRepository implements JniRepository {
 
         Preconditions.checkNotNull(jniLibrary);
         Preconditions.checkArgument(this.equals(jniLibrary.getJniRepository()));
-        Preconditions.checkState(JniLibrary.Status.STORED.equals(jniLibrary.getStatus()));
 
-        safeLoad(jniLibrary);
+        await(loading(jniLibrary, CALLER));
     }
 
     @Override
     public void load(String libraryPackage, String libraryName) throws JniRepositoryException {
 
-        JniLibrary jniLibrary = this.libraries.get(libraryPackage, libraryName);
+        JniLibrary jniLibrary = this.libraries.get(new JniLibraryId(libraryPackage, libraryName));
         if (jniLibrary == null) {
             throw new JniLibraryNotFoundException(libraryPackage, libraryName);
         } else {
@@ -105,25 +280,58 @@ abstract class AbstractJniRepository implements JniRepository {
     @Override
     public JniLibrary storeAndLoad(String libraryPath, String libraryPackage, String libraryName) throws JniRepositoryException {
         JniLibrary jniLibrary = store(libraryPath, libraryPackage, libraryName);
-        safeLoad(jniLibrary);
+        load(jniLibrary);
         return jniLibrary;
     }
 
     @Override
     public JniLibrary storeAndLoad(String libraryPackage, String libraryName) throws JniRepositoryException {
         JniLibrary jniLibrary = store(libraryPackage, libraryName);
-        safeLoad(jniLibrary);
+        load(jniLibrary);
         return jniLibrary;
     }
 
     @Override
     public void close() throws JniRepositoryException {
+        cancelCleanup();
         try {
-            FileUtils.deleteDirectory(repositoryDirectory);
+            cleanRepositoryDirectory();
             this.libraries.clear();
+            clearQuota();
         } catch (IOException e) {
             throw new JniRepositoryException(e);
         }
+        disableStatistics();
+        saveStartupProfile();
+    }
+
+    /**
+     * Forgets the libraries and removes the files of the repository in its executor (see
+     * getExecutor). The default executor has daemon threads, so the removal may not end if the
+     * JVM exits: the directories of the TempDirJniRepository left behind can be removed by a
+     * later JVM (see TempDirJniRepository.reapOrphanedDirectories). The repository should not be used
+     * until the future completes.
+     */
+    @Override
+    public CompletableFuture<Void> closeAsync() {
+        cancelCleanup();
+        this.libraries.clear();
+        clearQuota();
+        try {
+            disableStatistics();
+            saveStartupProfile();
+        } catch (JniRepositoryException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                cleanRepositoryDirectory();
+            } catch (IOException e) {
+                throw new CompletionException(new JniRepositoryException(e));
+            }
+        }, getExecutor());
     }
 
     @Override
@@ -131,66 +339,1140 @@ abstract class AbstractJniRepository implements JniRepository {
         return libraries.size();
     }
 
+    /**
+     * Sets the executor where the bulk and asynchronous operations store and load the libraries
+     * when no executor is given. By default the repositories share a pool of daemon threads, one
+     * per available processor.
+     *
+     * @param executor The default executor of the bulk and asynchronous operations.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Preconditions.checkNotNull(executor);
+    }
+
+    /**
+     * Stores and loads the libraries of the bulk and asynchronous operations in a new virtual
+     * thread per task, see setExecutor. The store and loading never hold a monitor while they
+     * do I/O or load a library, so they do not pin the carrier threads, and many libraries can
+     * be extracted at once without sizing a pool.
+     *
+     * @throws UnsupportedOperationException If the JVM has no virtual threads (Java 21).
+     */
+    public void setVirtualThreadExecutor() {
+        setExecutor(VirtualThreads.executor());
+    }
+
+    /**
+     * Returns true if the JVM has virtual threads, see setVirtualThreadExecutor.
+     *
+     * @return True if the JVM has virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Returns the executor where the bulk and asynchronous operations store and load the
+     * libraries when no executor is given.
+     *
+     * @return The default executor of the bulk and asynchronous operations.
+     */
+    public Executor getExecutor() {
+        Executor executor = this.executor;
+        return executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+    }
+
+    /**
+     * Returns the pool of daemon threads shared by the repositories without executor.
+     *
+     * @return The default executor of the repositories.
+     */
+    static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Enables or disables the dependency resolution. When enabled, the ELF dynamic section of
+     * each stored library is read before loading it: the library is rejected if its ELF class or
+     * machine does not match the JVM, and the libraries of this repository that it needs
+     * (DT_NEEDED) are loaded before it, in parallel when they are independent. Libraries that
+     * are not ELF files are loaded as usual. Disabled by default.
+     *
+     * @param resolveDependencies True to enable the dependency resolution.
+     */
+    public void setResolveDependencies(boolean resolveDependencies) {
+        this.resolveDependencies = resolveDependencies;
+    }
+
+    /**
+     * Returns true if the dependency resolution is enabled.
+     *
+     * @return True if the dependency resolution is enabled.
+     */
+    public boolean isResolveDependencies() {
+        return resolveDependencies;
+    }
+
+    /**
+     * Sets how the libraries whose content has been already stored, with cloning, by any
+     * repository of the JVM are written, COPY by default: with CLONE they are copied from the
+     * existing file by the kernel, and with HARD_LINK they are hard links of the existing file.
+     * Only the repositories that copy the libraries to their own paths (like
+     * ConfigurableJniRepository) clone them, the cached ones already share their files.
+     *
+     * @param cloning How the libraries are written.
+     * @see LibraryCloning
+     */
+    public void setCloning(LibraryCloning cloning) {
+        this.cloning = Preconditions.checkNotNull(cloning);
+    }
+
+    public LibraryCloning getCloning() {
+        return cloning;
+    }
+
+    /**
+     * Sets the platform of the libraries stored from the classpath, or null to disable the
+     * platform resolution, that is disabled by default. When enabled, the first store of a
+     * library of a package indexes the platform directories of the package (see JniPlatform)
+     * and every library is stored from the variant of the best matching directory, or from the
+     * package itself when it has no variant for the platform. Use JniPlatform.current() for the
+     * platform of the running JVM.
+     *
+     * @param platform The platform of the libraries, or null.
+     */
+    public void setPlatform(JniPlatform platform) {
+        this.platform = platform;
+        platformIndexes.invalidateAll();
+    }
+
+    /**
+     * Returns the platform of the libraries stored from the classpath, or null if the platform
+     * resolution is disabled.
+     *
+     * @return The platform of the libraries.
+     */
+    public JniPlatform getPlatform() {
+        return platform;
+    }
+
+    /**
+     * Bounds the stored files of this repository to the given bytes and entries. When a store
+     * exceeds the quota, the least recently stored or used libraries that are not loaded are
+     * evicted: their files are deleted and they go back to DECLARED, so they are stored again on
+     * their next loading. Loaded libraries are counted but never evicted, so the quota may be
+     * exceeded by them. The evictions are notified to the listeners (see JniRepositoryStatistics).
+     * It should be set before the first store, the libraries stored before are not counted.
+     *
+     * @param maxBytes Maximum bytes of the stored files, Long.MAX_VALUE for no bound.
+     * @param maxEntries Maximum number of stored files, Integer.MAX_VALUE for no bound.
+     */
+    public void setQuota(long maxBytes, int maxEntries) {
+        Preconditions.checkArgument(maxBytes > 0, "The quota must allow some bytes.");
+        Preconditions.checkArgument(maxEntries > 0, "The quota must allow some entries.");
+        this.quota = new LibraryQuota(maxBytes, maxEntries);
+    }
+
+    /**
+     * Returns the maximum bytes of the stored files of this repository, see setQuota.
+     *
+     * @return The maximum bytes of the stored files, Long.MAX_VALUE if they are not bounded.
+     */
+    public long getQuotaBytes() {
+        LibraryQuota quota = this.quota;
+        return quota == null ? Long.MAX_VALUE : quota.getMaxBytes();
+    }
+
+    /**
+     * Returns the maximum number of stored files of this repository, see setQuota.
+     *
+     * @return The maximum number of stored files, Integer.MAX_VALUE if they are not bounded.
+     */
+    public int getQuotaEntries() {
+        LibraryQuota quota = this.quota;
+        return quota == null ? Integer.MAX_VALUE : quota.getMaxEntries();
+    }
+
+    /**
+     * Adds a listener of the store and loading of the libraries of this repository.
+     *
+     * @param listener The listener to add.
+     */
+    public synchronized void addListener(JniRepositoryListener listener) {
+        Preconditions.checkNotNull(listener);
+        JniRepositoryListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Removes a listener added with addListener, if it was added.
+     *
+     * @param listener The listener to remove.
+     */
+    public synchronized void removeListener(JniRepositoryListener listener) {
+        List<JniRepositoryListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+        if (listeners.remove(listener)) {
+            this.listeners = listeners.isEmpty() ? NO_LISTENERS : listeners.toArray(new JniRepositoryListener[listeners.size()]);
+        }
+    }
+
+    /**
+     * Enables the startup profile of this repository in the given file. The libraries that
+     * the application stores and loads are recorded in the order of their first use, and the
+     * profile is written when the repository is closed (or by saveStartupProfile). If the file
+     * exists, the libraries of the previous profile are stored now, in their order, in the
+     * executor of the repository (see getExecutor), and their files are read so they are in the
+     * page cache when they are loaded. The replay is speculative: its libraries are not loaded,
+     * its failures are ignored, and it is not recorded, so the libraries that the application
+     * does not use anymore leave the next profile. It should be enabled once the repository
+     * is configured (platform, cloning...) and before its first store.
+     *
+     * @param profileFile The file of the profile.
+     * @throws JniRepositoryException If the previous profile could not be read.
+     */
+    public void enableStartupProfile(File profileFile) throws JniRepositoryException {
+        Preconditions.checkNotNull(profileFile);
+        StartupProfile startupProfile = new StartupProfile(profileFile);
+        List<StartupProfile.Entry> previous;
+        try {
+            previous = startupProfile.read();
+        } catch (IOException e) {
+            throw new JniRepositoryException(e);
+        }
+        synchronized (this) {
+            Preconditions.checkState(this.startupProfile == null, "The startup profile is already enabled.");
+            this.startupProfile = startupProfile;
+        }
+        Executor executor = getExecutor();
+        for (StartupProfile.Entry entry : previous) {
+            JniLibraryId libraryId = entry.getLibraryId();
+            JniLibrary library = reserve(libraryId.getLibraryPackage(), libraryId.getLibraryName());
+            Callable<LibrarySource> declaredSource = library.declaredSource;
+            share(library, declaredSource != null ? declaredSource
+                    : resourceSource(libraryId.getLibraryPackage(), libraryId.getLibraryName()), executor)
+                    .thenAcceptAsync(AbstractJniRepository::warm, executor);
+        }
+    }
+
+    /**
+     * Writes the startup profile of this repository, if it is enabled, replacing its file.
+     *
+     * @throws JniRepositoryException If the profile could not be written.
+     */
+    public void saveStartupProfile() throws JniRepositoryException {
+        StartupProfile startupProfile = this.startupProfile;
+        if (startupProfile == null) {
+            return;
+        }
+        try {
+            startupProfile.write();
+        } catch (IOException e) {
+            throw new JniRepositoryException(e);
+        }
+    }
+
+    private static void warm(JniLibrary library) {
+        try {
+            StartupProfile.warm(new File(library.getLibraryPath()));
+        } catch (IOException e) {
+            // the warming is only a hint for the loading
+        }
+    }
+
+    /**
+     * Starts collecting the statistics of this repository and registers them in the platform
+     * MBean server, see JniRepositoryStatistics. Calling it again returns the same statistics.
+     * They are unregistered when the repository is closed.
+     *
+     * @return The statistics of this repository.
+     * @throws JniRepositoryException If the statistics could not be registered.
+     */
+    public synchronized JniRepositoryStatistics enableStatistics() throws JniRepositoryException {
+        if (statistics == null) {
+            try {
+                JniRepositoryStatistics created = new JniRepositoryStatistics(this);
+                created.register();
+                addListener(created);
+                statistics = created;
+            } catch (JMException e) {
+                throw new JniRepositoryException(e);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of this repository, or null if they are not enabled.
+     *
+     * @return The statistics of this repository.
+     */
+    public synchronized JniRepositoryStatistics getStatistics() {
+        return statistics;
+    }
+
+    private synchronized void disableStatistics() throws JniRepositoryException {
+        if (statistics != null) {
+            removeListener(statistics);
+            try {
+                statistics.unregister();
+            } catch (JMException e) {
+                throw new JniRepositoryException(e);
+            } finally {
+                statistics = null;
+            }
+        }
+    }
+
+    private Set<JniLibrary> bulk(Collection<JniLibraryId> libraryIds, boolean load) throws JniRepositoryException {
+        Preconditions.checkNotNull(libraryIds);
+        LibraryBulkEvent event = new LibraryBulkEvent();
+        event.begin();
+
+        Executor executor = getExecutor();
+        Map<JniLibraryId, CompletableFuture<JniLibrary>> futures = new LinkedHashMap<>();
+        for (JniLibraryId libraryId : new LinkedHashSet<>(libraryIds)) {
+            futures.put(libraryId, load
+                    ? storeAndLoadAsync(libraryId.getLibraryPackage(), libraryId.getLibraryName(), executor)
+                    : storeAsync(libraryId.getLibraryPackage(), libraryId.getLibraryName(), executor));
+        }
+
+        Set<JniLibrary> succeeded = new LinkedHashSet<>();
+        Map<JniLibraryId, JniRepositoryException> failures = new LinkedHashMap<>();
+        for (Map.Entry<JniLibraryId, CompletableFuture<JniLibrary>> entry : futures.entrySet()) {
+            try {
+                succeeded.add(entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JniRepositoryException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failures.put(entry.getKey(), cause instanceof JniRepositoryException
+                        ? (JniRepositoryException) cause
+                        : new JniRepositoryException(cause));
+            }
+        }
+        if (event.shouldCommit()) {
+            event.operation = load ? "storeAndLoadAll" : "storeAll";
+            event.repositoryDirectory = getRepositoryDirectory();
+            event.libraries = futures.size();
+            event.failures = failures.size();
+            event.commit();
+        }
+        if (!failures.isEmpty()) {
+            throw new JniRepositoryBulkException(succeeded, failures);
+        }
+        return succeeded;
+    }
+
+    /**
+     * Returns the libraries of the package, that are found in the classpath by default.
+     */
+    List<JniLibraryId> findLibraries(String libraryPackage, ClassLoader classLoader) throws JniRepositoryException {
+        Preconditions.checkNotNull(libraryPackage);
+        String localLibraryParentPath = libraryPackage.replace('.', '/');
+        try {
+            JniLibraryManifest manifest = manifest(classLoader);
+            if (manifest.containsPackage(libraryPackage)) {
+                // indexed at build time, the classpath is not scanned
+                List<JniLibraryId> libraryIds = new ArrayList<>();
+                for (String libraryName : manifest.getLibraryNames(libraryPackage, platform)) {
+                    libraryIds.add(new JniLibraryId(libraryPackage, libraryName));
+                }
+                return libraryIds;
+            }
+            Resource[] resources = new PathMatchingResourcePatternResolver(classLoader)
+                    .getResources(PathMatchingResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + localLibraryParentPath + "/*");
+            Set<JniLibraryId> libraryIds = new LinkedHashSet<>(resources.length);
+            for (Resource resource : resources) {
+                String filename = resource.getFilename();
+                if (resource.isReadable() && filename != null) {
+                    // a compressed library is stored with the name of the plain library
+                    LibraryCompression compression = LibraryCompression.of(filename);
+                    String libraryName = compression == null
+                            ? filename
+                            : filename.substring(0, filename.length() - compression.getExtension().length());
+                    libraryIds.add(new JniLibraryId(libraryPackage, libraryName));
+                }
+            }
+            JniPlatform platform = this.platform;
+            if (platform != null) {
+                for (String libraryName : platformIndex(classLoader, libraryPackage, platform).getLibraryNames()) {
+                    libraryIds.add(new JniLibraryId(libraryPackage, libraryName));
+                }
+            }
+            return new ArrayList<>(libraryIds);
+        } catch (IOException e) {
+            throw new JniRepositoryException(e);
+        }
+    }
+
+    /**
+     * Returns the store of the library, that is shared by all its callers. The first caller
+     * starts the store in the given executor, the others get the store in flight or done, so
+     * the library is copied once. When the store fails the library is released, unless it is
+     * declared, then the store can be tried again.
+     */
+    private CompletableFuture<JniLibrary> storing(JniLibrary library, Callable<LibrarySource> source, Executor executor) {
+        StartupProfile startupProfile = this.startupProfile;
+        if (startupProfile != null) {
+            startupProfile.stored(library.getLibraryId());
+        }
+        LibraryQuota quota = this.quota;
+        if (quota != null) {
+            quota.used(library);
+        }
+        return share(library, source, executor);
+    }
+
+    private CompletableFuture<JniLibrary> share(JniLibrary library, Callable<LibrarySource> source, Executor executor) {
+        while (true) {
+            CompletableFuture<JniLibrary> storing = library.storing.get();
+            if (storing instanceof Eviction) {
+                return storing.thenCompose(evicted -> share(library, source, executor));
+            }
+            if (storing != null) {
+                return storing;
+            }
+            CompletableFuture<JniLibrary> created = new CompletableFuture<>();
+            if (library.storing.compareAndSet(null, created)) {
+                run(library, created, executor, () -> safeStore(source, library), () -> {
+                    if (!release(library)) {
+                        library.storing.compareAndSet(created, null);
+                    }
+                });
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Returns the loading of the library, that is shared by all its callers. The first caller
+     * starts the loading in the given executor once the library is stored, the others get the
+     * loading in flight or done, so the library is loaded once. When the loading fails it can
+     * be tried again. A declared library that is not stored yet is stored first.
+     */
+    private CompletableFuture<JniLibrary> loading(JniLibrary library, Executor executor) {
+        StartupProfile startupProfile = this.startupProfile;
+        if (startupProfile != null) {
+            startupProfile.loaded(library.getLibraryId());
+        }
+        while (true) {
+            CompletableFuture<JniLibrary> loading = library.loading.get();
+            if (loading instanceof Eviction) {
+                return loading.thenCompose(evicted -> loading(library, executor));
+            }
+            if (loading != null) {
+                return loading;
+            }
+            CompletableFuture<JniLibrary> storing = library.storing.get();
+            if (storing instanceof Eviction) {
+                return storing.thenCompose(evicted -> loading(library, executor));
+            }
+            if (storing == null) {
+                // a declared library is stored on its first loading
+                Callable<LibrarySource> declaredSource = library.declaredSource;
+                Preconditions.checkState(declaredSource != null, "Library with package " + library.getLibraryPackage() + " and name " + library.getLibraryName() + " is not stored.");
+                storing = storing(library, declaredSource, executor);
+            }
+            CompletableFuture<JniLibrary> created = new CompletableFuture<>();
+            if (library.loading.compareAndSet(null, created)) {
+                Runnable reset = () -> library.loading.compareAndSet(created, null);
+                storing.whenComplete((stored, failure) -> {
+                    if (failure != null) {
+                        reset.run();
+                        created.completeExceptionally(failure);
+                    } else if (resolveDependencies) {
+                        loadAfterDependencies(library, created, executor, reset);
+                    } else {
+                        run(library, created, executor, () -> safeLoad(library), reset);
+                    }
+                });
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Resolves the dependencies of the stored library and loads it once all its dependencies
+     * of the repository are loaded. Every library waits only for its own dependencies, so
+     * independent libraries are loaded in parallel in topological order. A dependency that
+     * closes a cycle is not waited for.
+     */
+    private void loadAfterDependencies(JniLibrary library, CompletableFuture<JniLibrary> future, Executor executor, Runnable reset) {
+        CompletableFuture<JniLibrary> resolved = new CompletableFuture<>();
+        run(library, resolved, executor, () -> resolveDependencies(library), reset);
+        resolved.whenComplete((stored, failure) -> {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+                return;
+            }
+            List<CompletableFuture<JniLibrary>> dependencies = new ArrayList<>();
+            try {
+                for (JniLibrary dependency : library.getDependencies()) {
+                    if (!reaches(dependency, library, new HashSet<>())) {
+                        dependencies.add(loading(dependency, executor));
+                    }
+                }
+            } catch (RuntimeException e) {
+                reset.run();
+                future.completeExceptionally(new JniRepositoryException(e));
+                return;
+            }
+            CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()]))
+                    .whenComplete((loaded, dependencyFailure) -> {
+                        if (dependencyFailure == null) {
+                            run(library, future, executor, () -> safeLoad(library), reset);
+                        } else {
+                            reset.run();
+                            Throwable cause = dependencyFailure instanceof CompletionException && dependencyFailure.getCause() != null
+                                    ? dependencyFailure.getCause()
+                                    : dependencyFailure;
+                            future.completeExceptionally(new JniRepositoryException("Dependency of " + library + " failed.", cause));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Reads the ELF dynamic section of the stored library to find the libraries of the
+     * repository that it needs, and rejects it if it can not be loaded by this JVM. Like the
+     * dynamic linker, a DT_NEEDED entry is matched against the SONAME of the stored libraries,
+     * or their name when they have none. A declared library is matched by its name, also when
+     * the entry is a versioned name of it (libbar.so for libbar.so.1), since its SONAME is not
+     * known until it is stored. A library of the same package is preferred.
+     */
+    private void resolveDependencies(JniLibrary library) throws IOException {
+        ElfFile elfFile = ElfFile.read(new File(library.getLibraryPath()));
+        if (elfFile == null) {
+            library.dependencies = Collections.emptyList();
+            return;
+        }
+        elfFile.checkLoadable();
+        library.soname = elfFile.getSoname() != null ? elfFile.getSoname() : library.getLibraryName();
+        Map<String, List<JniLibrary>> bySoname = new HashMap<>();
+        Map<String, List<JniLibrary>> byName = new HashMap<>();
+        for (JniLibrary candidate : libraries.values()) {
+            if (candidate != library) {
+                String soname = soname(candidate);
+                if (soname != null) {
+                    bySoname.computeIfAbsent(soname, name -> new ArrayList<>()).add(candidate);
+                } else {
+                    byName.computeIfAbsent(candidate.getLibraryName(), name -> new ArrayList<>()).add(candidate);
+                }
+            }
+        }
+        List<JniLibrary> dependencies = new ArrayList<>();
+        for (String needed : elfFile.getNeeded()) {
+            JniLibrary dependency = provider(library, bySoname.get(needed));
+            if (dependency == null) {
+                dependency = provider(library, byName.get(needed));
+            }
+            int version = needed.indexOf(".so.");
+            if (dependency == null && version > 0) {
+                dependency = provider(library, byName.get(needed.substring(0, version + 3)));
+            }
+            if (dependency != null) {
+                dependencies.add(dependency);
+            }
+        }
+        library.dependencies = Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * Returns the SONAME of a stored library, or its name if it has none, reading it once. Returns
+     * null if the library is not stored.
+     */
+    private static String soname(JniLibrary library) {
+        String soname = library.soname;
+        if (soname == null && !JniLibrary.Status.DECLARED.equals(library.getStatus())) {
+            try {
+                ElfFile elfFile = ElfFile.read(new File(library.getLibraryPath()));
+                soname = elfFile != null && elfFile.getSoname() != null ? elfFile.getSoname() : library.getLibraryName();
+            } catch (IOException e) {
+                soname = library.getLibraryName();
+            }
+            library.soname = soname;
+        }
+        return soname;
+    }
+
+    /**
+     * Returns the candidate of the package of the library, or else the one of the first package
+     * in alphabetical order, so the dependency does not depend on the order of the registry.
+     */
+    private static JniLibrary provider(JniLibrary library, List<JniLibrary> candidates) {
+        if (candidates == null) {
+            return null;
+        }
+        JniLibrary provider = null;
+        for (JniLibrary candidate : candidates) {
+            if (candidate.getLibraryPackage().equals(library.getLibraryPackage())) {
+                return candidate;
+            }
+            if (provider == null || candidate.getLibraryPackage().compareTo(provider.getLibraryPackage()) < 0) {
+                provider = candidate;
+            }
+        }
+        return provider;
+    }
+
+    private static boolean reaches(JniLibrary from, JniLibrary to, Set<JniLibrary> visited) {
+        if (from == to) {
+            return true;
+        }
+        if (!visited.add(from)) {
+            return false;
+        }
+        for (JniLibrary dependency : from.getDependencies()) {
+            if (reaches(dependency, to, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void run(JniLibrary library, CompletableFuture<JniLibrary> future, Executor executor, Step step, Runnable onFailure) {
+        try {
+            executor.execute(() -> {
+                try {
+                    step.run();
+                    future.complete(library);
+                } catch (Throwable e) {
+                    onFailure.run();
+                    future.completeExceptionally(e instanceof JniRepositoryException ? e : new JniRepositoryException(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            onFailure.run();
+            future.completeExceptionally(new JniRepositoryException(e));
+        }
+    }
+
+    private static JniLibrary await(CompletableFuture<JniLibrary> future) throws JniRepositoryException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JniRepositoryException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JniRepositoryException) {
+                throw (JniRepositoryException) cause;
+            }
+            throw new JniRepositoryException(cause);
+        }
+    }
+
+    /**
+     * Returns the source of the library resource, or of its first compressed variant
+     * (libfoo.so.gz, libfoo.so.zst, libfoo.so.xz) when the plain resource does not exist. The
+     * best platform variant is preferred when the platform resolution is enabled, and the
+     * libraries of the jnibox index (see JniLibraryManifest) are found without probing. The resource
+     * is looked up in the context class loader of the caller, even when the source is called
+     * from the executor.
+     */
+    private Callable<LibrarySource> resourceSource(String libraryPackage, String libraryName) {
+        ClassLoader classLoader = contextClassLoader();
+        JniPlatform platform = this.platform;
+        return () -> {
+            JniLibraryManifest.Entry manifestEntry = manifest(classLoader).find(libraryPackage, libraryName, platform);
+            if (manifestEntry != null) {
+                LibrarySource source = manifestSource(classLoader, manifestEntry);
+                if (source != null) {
+                    return source;
+                }
+            }
+            if (platform != null) {
+                LibrarySource source = platformIndex(classLoader, libraryPackage, platform).source(libraryName);
+                if (source != null) {
+                    return source;
+                }
+            }
+            return resourceSource(classLoader, libraryPackage, libraryName);
+        };
+    }
+
+    private JniLibraryManifest manifest(ClassLoader classLoader) throws IOException {
+        try {
+            return manifests.get(classLoader);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static LibrarySource manifestSource(ClassLoader classLoader, JniLibraryManifest.Entry manifestEntry) {
+        URL url = classLoader.getResource(manifestEntry.getResourcePath());
+        if (url == null) {
+            return null;
+        }
+        LibraryCompression compression = LibraryCompression.of(manifestEntry.getResourcePath());
+        if (compression == null) {
+            Preconditions.checkState(manifestEntry.getResourcePath().endsWith('/' + manifestEntry.getLibraryName()),
+                    "The codec of " + manifestEntry.getResourcePath() + " is not in the classpath.");
+            return LibrarySource.of(url).withManifestEntry(manifestEntry);
+        }
+        return LibrarySource.compressed(url, compression).withManifestEntry(manifestEntry);
+    }
+
+    private static ClassLoader contextClassLoader() {
+        return MoreObjects.firstNonNull(
+                Thread.currentThread().getContextClassLoader(), AbstractJniRepository.class.getClassLoader());
+    }
+
+    private PlatformIndex platformIndex(ClassLoader classLoader, String libraryPackage, JniPlatform platform) throws IOException {
+        ConcurrentMap<String, PlatformIndex> packageIndexes = platformIndexes.getUnchecked(classLoader);
+        PlatformIndex platformIndex = packageIndexes.get(libraryPackage);
+        if (platformIndex == null) {
+            // concurrent first stores may build the index twice, the first one is kept
+            PlatformIndex built = PlatformIndex.build(classLoader, libraryPackage, platform);
+            platformIndex = packageIndexes.putIfAbsent(libraryPackage, built);
+            if (platformIndex == null) {
+                platformIndex = built;
+            }
+        }
+        return platformIndex;
+    }
+
+    private static LibrarySource resourceSource(ClassLoader classLoader, String libraryPackage, String libraryName) {
+        String localLibraryParentPath = libraryPackage.replace('.', File.separatorChar);
+        String localLibraryPath = localLibraryParentPath + File.separator + libraryName;
+        URL localLibraryUrl = classLoader.getResource(localLibraryPath);
+        if (localLibraryUrl != null) {
+            return LibrarySource.of(localLibraryUrl);
+        }
+        for (LibraryCompression compression : LibraryCompression.available()) {
+            URL compressedLibraryUrl = classLoader.getResource(localLibraryPath + compression.getExtension());
+            if (compressedLibraryUrl != null) {
+                return LibrarySource.compressed(compressedLibraryUrl, compression);
+            }
+        }
+        throw new IllegalArgumentException(String.format("resource %s not found.", localLibraryPath));
+    }
+
     private void safeLoad(final JniLibrary library) throws JniRepositoryException {
         assert library != null;
-        assert libraries.containsValue(library);
         assert library.getStatus().equals(JniLibrary.Status.STORED);
-        synchronized (library) {
-            String path = library.getLibraryPath();
-            try {
-                jniLibraryLoader.load(path);
-                library.setStatus(JniLibrary.Status.LOADED);
-            } catch (Exception e) {
-                library.setStatus(JniLibrary.Status.STORED);
-                throw new JniRepositoryException(e);
+        JniRepositoryListener[] listeners = this.listeners;
+        long start = listeners.length == 0 ? 0L : System.nanoTime();
+        LibraryLoadEvent event = new LibraryLoadEvent();
+        event.begin();
+        String path = library.getLibraryPath();
+        try {
+            getJniLibraryLoader(library).load(path);
+        } catch (Exception | UnsatisfiedLinkError e) {
+            library.setStatus(JniLibrary.Status.STORED);
+            LibraryQuota quota = this.quota;
+            if (quota != null) {
+                quota.loadFailed(library);
+            }
+            commit(event, library, e);
+            for (JniRepositoryListener listener : listeners) {
+                fire(() -> listener.loadFailed(library, e));
+            }
+            throw new JniRepositoryException(e);
+        }
+        commit(event, library, null);
+        LibraryQuota quota = this.quota;
+        if (quota != null) {
+            quota.loaded(library);
+        }
+        if (listeners.length > 0) {
+            long nanos = System.nanoTime() - start;
+            for (JniRepositoryListener listener : listeners) {
+                fire(() -> listener.loaded(library, nanos));
             }
         }
+        changeStatus(library, JniLibrary.Status.LOADED, listeners);
     }
 
-    private void checkStore(String libraryPackage, String libraryName) {
-        assert libraryName != null;
-        assert libraryPackage != null;
-        synchronized (libraries) {
-            assert !libraries.contains(libraryPackage, libraryName);
-            libraries.put(libraryPackage, libraryName, new JniLibrary(libraryPackage, libraryName, this));
+    private static void changeStatus(JniLibrary library, JniLibrary.Status status, JniRepositoryListener[] listeners) {
+        JniLibrary.Status previous = library.getStatus();
+        library.setStatus(status);
+        if (previous != status) {
+            for (JniRepositoryListener listener : listeners) {
+                fire(() -> listener.statusChanged(library, previous, status));
+            }
         }
     }
 
-    private void safeStore(InputStream inputStream, String libraryPackage, String libraryName) throws JniRepositoryException {
-        assert inputStream != null;
+    private static void fire(Runnable notification) {
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            // a listener must not break the store or the loading
+        }
+    }
+
+    private boolean contains(JniLibrary library) {
+        return library == libraries.get(library.getLibraryId());
+    }
+
+    private JniLibrary reserve(String libraryPackage, String libraryName) {
         assert libraryName != null;
         assert libraryPackage != null;
-        final JniLibrary library = libraries.get(libraryPackage, libraryName);
+        JniLibraryId libraryId = new JniLibraryId(libraryPackage, libraryName);
+        JniLibrary library = libraries.get(libraryId);
+        if (library == null) {
+            JniLibrary created = new JniLibrary(libraryPackage, libraryName, this);
+            library = libraries.putIfAbsent(libraryId, created);
+            if (library == null) {
+                library = created;
+            }
+        }
+        return library;
+    }
+
+    private boolean release(JniLibrary library) {
         assert library != null;
+        return library.declaredSource == null
+                && JniLibrary.Status.DECLARED.equals(library.getStatus())
+                && libraries.remove(library.getLibraryId(), library);
+    }
+
+    private static JniLibrary declare(JniLibrary library, Callable<LibrarySource> source) {
+        if (library.declaredSource == null) {
+            library.declaredSource = source;
+        }
+        LibraryDeclareEvent event = new LibraryDeclareEvent();
+        if (event.shouldCommit()) {
+            event.libraryPackage = library.getLibraryPackage();
+            event.libraryName = library.getLibraryName();
+            event.repositoryDirectory = library.getJniRepository().getRepositoryDirectory();
+            event.commit();
+        }
+        return library;
+    }
+
+    /**
+     * Records the type of the source when it is found.
+     */
+    private static Callable<LibrarySource> typed(Callable<LibrarySource> source, String[] sourceType) {
+        return () -> {
+            LibrarySource librarySource = source.call();
+            sourceType[0] = librarySource.getType();
+            return librarySource;
+        };
+    }
+
+    private static void commit(LibraryStoreEvent event, JniLibrary library, File libraryFile, String[] sourceType, Exception failure) {
+        if (event.shouldCommit()) {
+            event.libraryPackage = library.getLibraryPackage();
+            event.libraryName = library.getLibraryName();
+            if (libraryFile != null) {
+                event.libraryPath = libraryFile.getAbsolutePath();
+                event.bytes = libraryFile.length();
+            }
+            event.sourceType = sourceType == null || sourceType[0] == null ? "none" : sourceType[0];
+            event.failure = failure == null ? null : failure.toString();
+            event.commit();
+        }
+    }
+
+    private static void commit(LibraryLoadEvent event, JniLibrary library, Throwable failure) {
+        if (event.shouldCommit()) {
+            event.libraryPackage = library.getLibraryPackage();
+            event.libraryName = library.getLibraryName();
+            event.libraryPath = library.getLibraryPath();
+            event.failure = failure == null ? null : failure.toString();
+            event.commit();
+        }
+    }
+
+    private void safeStore(Callable<LibrarySource> source, final JniLibrary library) throws JniRepositoryException {
+        assert source != null;
+        assert library != null;
+        assert contains(library);
         assert library.getStatus().equals(JniLibrary.Status.DECLARED);
+        if (cleanup == null) {
+            registerCleanup();
+        }
+        JniRepositoryListener[] listeners = this.listeners;
+        long start = listeners.length == 0 ? 0L : System.nanoTime();
+        LibraryStoreEvent event = new LibraryStoreEvent();
+        event.begin();
+        Callable<LibrarySource> storedSource = source;
+        String[] sourceType = null;
+        if (event.isEnabled()) {
+            // the event is not captured, so it is not allocated when it is disabled
+            sourceType = new String[1];
+            source = typed(source, sourceType);
+        }
+        File finalLibraryFile;
         try {
-            synchronized (library) {
-                library.setStatus(JniLibrary.Status.STORED);
-            }
-            // org.company.project.component => org/company/project/component
-            String localLibraryParentPath = libraryPackage.replace('.', File.separatorChar);
-            String finalLibraryParentPath = repositoryDirectory.getAbsolutePath() + File.separator + localLibraryParentPath;
-            File finalLibraryParentDir = new File(finalLibraryParentPath);
-            finalLibraryParentDir.mkdirs();
-
-            String localLibraryPath = localLibraryParentPath + File.separator + libraryName;
-            String finalLibraryPath = finalLibraryParentPath + File.separator + libraryName;
-
-            File finalLibraryFile = new File(finalLibraryPath);
-            OutputStream out = FileUtils.openOutputStream(finalLibraryFile);
-            IOUtils.copy(inputStream, out);
-            inputStream.close();
-            out.close();
-            library.setLibraryPath(finalLibraryPath);
+            finalLibraryFile = storeLibrary(source, library.getLibraryPackage(), library.getLibraryName());
+            library.setLibraryPath(finalLibraryFile.getAbsolutePath());
+            library.storedSource = storedSource;
         } catch (Exception e) {
             library.setStatus(JniLibrary.Status.DECLARED);
+            commit(event, library, null, sourceType, e);
+            for (JniRepositoryListener listener : listeners) {
+                fire(() -> listener.storeFailed(library, e));
+            }
             throw new JniRepositoryException(e);
         }
+        commit(event, library, finalLibraryFile, sourceType, null);
+        if (listeners.length > 0) {
+            long nanos = System.nanoTime() - start;
+            long bytes = finalLibraryFile.length();
+            for (JniRepositoryListener listener : listeners) {
+                fire(() -> listener.stored(library, bytes, nanos));
+            }
+        }
+        changeStatus(library, JniLibrary.Status.STORED, listeners);
+        LibraryQuota quota = this.quota;
+        if (quota != null) {
+            quota.stored(library, finalLibraryFile.length(), storedSource);
+            for (LibraryQuota.Stored evicted : quota.overflow(library)) {
+                evict(quota, evicted);
+            }
+        }
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        this.close();
-        super.finalize();
+    /**
+     * Evicts a stored library that is not loaded: its store and loading are replaced by an
+     * eviction, so the concurrent callers wait for it and then store the library again, its
+     * file is deleted and it goes back to DECLARED with the source of its store. A library that
+     * is being loaded is not evicted.
+     */
+    private void evict(LibraryQuota quota, LibraryQuota.Stored evicted) {
+        JniLibrary library = evicted.library;
+        CompletableFuture<JniLibrary> stored = library.storing.get();
+        Eviction eviction = new Eviction();
+        if (stored == null || !stored.isDone() || stored.isCompletedExceptionally()
+                || !library.loading.compareAndSet(null, eviction)) {
+            quota.giveBack(evicted);
+            return;
+        }
+        if (!library.storing.compareAndSet(stored, eviction)) {
+            library.loading.compareAndSet(eviction, null);
+            eviction.complete(library);
+            quota.giveBack(evicted);
+            return;
+        }
+        JniRepositoryListener[] listeners = this.listeners;
+        try {
+            evictLibraryFile(new File(library.getLibraryPath()));
+        } catch (IOException e) {
+            // the file is written again by the next store
+        }
+        if (library.declaredSource == null) {
+            library.declaredSource = evicted.source;
+        }
+        changeStatus(library, JniLibrary.Status.DECLARED, listeners);
+        for (JniRepositoryListener listener : listeners) {
+            fire(() -> listener.evicted(library, evicted.bytes));
+        }
+        library.storing.compareAndSet(eviction, null);
+        library.loading.compareAndSet(eviction, null);
+        eviction.complete(library);
+    }
+
+    private void clearQuota() {
+        LibraryQuota quota = this.quota;
+        if (quota != null) {
+            quota.clear();
+        }
+    }
+
+    /**
+     * Deletes the file of an evicted library, see setQuota. Repositories that do not own their
+     * files override it to keep them.
+     *
+     * @param libraryFile The file of the evicted library.
+     * @throws IOException If the file could not be deleted.
+     */
+    protected void evictLibraryFile(File libraryFile) throws IOException {
+        java.nio.file.Files.deleteIfExists(libraryFile.toPath());
+    }
+
+    /**
+     * Finds the source of the library and stores it with storeLibraryFile. Repositories that
+     * do not copy the libraries do not even find their source.
+     */
+    File storeLibrary(Callable<LibrarySource> source, String libraryPackage, String libraryName) throws Exception {
+        return storeLibraryFile(source.call(), libraryPackage, libraryName);
+    }
+
+    /**
+     * Writes the content of the library under the repository directory and returns the
+     * written file. The default layout is the package path of the library followed by its name.
+     * The content is copied with the cheapest method of the source, see LibrarySource.
+     *
+     * @param source Content of the library.
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return The file where the library has been stored.
+     * @throws IOException If the library could not be written.
+     */
+    protected File storeLibraryFile(LibrarySource source, String libraryPackage, String libraryName) throws IOException {
+        File finalLibraryParentDir = getLibraryParentDirectory(libraryPackage);
+        finalLibraryParentDir.mkdirs();
+        File finalLibraryFile = new File(finalLibraryParentDir, libraryName);
+        LibraryCloning cloning = this.cloning;
+        String contentKey = cloning == LibraryCloning.COPY ? null : source.getContentKey();
+        if (contentKey == null) {
+            source.copyTo(finalLibraryFile);
+        } else if (!LibraryClones.cloneTo(contentKey, finalLibraryFile, cloning)) {
+            source.copyTo(finalLibraryFile);
+            LibraryClones.register(contentKey, finalLibraryFile);
+        }
+        return finalLibraryFile;
+    }
+
+    /**
+     * Removes the files of the repository when it is closed. By default the whole repository
+     * directory is deleted.
+     *
+     * @throws IOException If the repository directory could not be deleted.
+     */
+    protected void cleanRepositoryDirectory() throws IOException {
+        FileUtils.deleteDirectory(repositoryDirectory);
+    }
+
+    /**
+     * Returns the action that removes the files of the repository when it becomes unreachable
+     * without being closed, run by a Cleaner. The action must not reference the repository, or
+     * the repository would never become unreachable. By default it deletes the repository
+     * directory: subclasses that override cleanRepositoryDirectory override this too.
+     *
+     * @return The cleanup action, or null if there is nothing to clean.
+     */
+    protected Runnable cleanupAction() {
+        return new DirectoryCleanup(repositoryDirectory);
+    }
+
+    private synchronized void registerCleanup() {
+        if (cleanup == null) {
+            Runnable action = cleanupAction();
+            if (action != null) {
+                Cleanup created = new Cleanup(action);
+                created.cleanable = CLEANER.register(this, created);
+                cleanup = created;
+            }
+        }
+    }
+
+    private synchronized void cancelCleanup() {
+        if (cleanup != null) {
+            cleanup.cancel();
+            cleanup = null;
+        }
+    }
+
+    /**
+     * Returns the loader of the given library, by default the loader of the repository.
+     *
+     * @param library The library to load.
+     * @return The loader of the library.
+     */
+    protected JniLibraryLoader getJniLibraryLoader(JniLibrary library) {
+        return jniLibraryLoader;
+    }
+
+    /**
+     * Returns the directory of the repository where the libraries of the given package are
+     * stored, org.company.project.component =&gt; ${repositoryDirectory}/org/company/project/component
+     *
+     * @param libraryPackage Package of the library.
+     * @return The directory of the package in the repository.
+     */
+    protected File getLibraryParentDirectory(String libraryPackage) {
+        String localLibraryParentPath = libraryPackage.replace('.', File.separatorChar);
+        return new File(repositoryDirectory, localLibraryParentPath);
+    }
+
+    /**
+     * Source of a library stored from a file, equal to the sources of the same file.
+     */
+    private static final class FileSource implements Callable<LibrarySource> {
+
+        private final File file;
+
+        private FileSource(File file) {
+            this.file = file.getAbsoluteFile();
+        }
+
+        @Override
+        public LibrarySource call() {
+            return LibrarySource.of(file);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FileSource && file.equals(((FileSource) o).file);
+        }
+
+        @Override
+        public int hashCode() {
+            return file.hashCode();
+        }
+    }
+
+    /**
+     * Store and loading of a library while it is evicted.
+     */
+    private static final class Eviction extends CompletableFuture<JniLibrary> {
+    }
+
+    /**
+     * Runs the cleanup action once, unless the repository has been closed.
+     */
+    private static final class Cleanup implements Runnable {
+
+        private final Runnable action;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private Cleaner.Cleanable cleanable;
+
+        private Cleanup(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            if (done.compareAndSet(false, true)) {
+                action.run();
+            }
+        }
+
+        private void cancel() {
+            done.set(true);
+            // unregisters the cleanup, the action is not run
+            cleanable.clean();
+        }
+    }
+
+    private static final class DirectoryCleanup implements Runnable {
+
+        private final File directory;
+
+        private DirectoryCleanup(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void run() {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private interface Step {
+
+        void run() throws Exception;
+    }
+
+    private static final class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("jniRepository-%d").build());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
     }
 }
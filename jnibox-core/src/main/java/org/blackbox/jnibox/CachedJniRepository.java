@@ -0,0 +1,128 @@
+package org.blackbox.jnibox;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Jni repository that keeps the stored libraries between runs of the application. The libraries
+ * are addressed by the SHA-256 hash and the size of their content:
+ *
+ * ${cacheDirectory}/${libraryPackagePath}/${sha256}-${size}/${libraryName}
+ *
+ * When a library is stored and a file with the same content has been already stored by a
+ * previous run, it is verified (size and hash) and reused, so no copy is done. Closing the
+ * repository forgets its libraries but keeps the cache directory, so the next run can reuse it.
+ *
+ * The files are written in a temporary file and then atomically renamed, so a cache entry is
+ * never seen half written even if the JVM crashes during the copy.
+ *
+ * Libraries in the jnibox index (see JniLibraryManifest) are not read to find their entry, the
+ * hash and the size of the index are used, and an existing entry is validated by its size only:
+ * it was verified against its hash when it was written.
+ */
+public class CachedJniRepository extends AbstractJniRepository {
+
+    public CachedJniRepository(File cacheDirectory, JniLibraryLoader jniLibraryLoader) {
+        super(cacheDirectory, jniLibraryLoader);
+    }
+
+    public CachedJniRepository(File cacheDirectory) {
+        super(cacheDirectory);
+    }
+
+    /**
+     * Creates a cache repository in ${System.getProperty("java.io.tmpdir")}/jniRepository-cache
+     */
+    public CachedJniRepository() {
+        super(new File(System.getProperty("java.io.tmpdir"), "jniRepository-cache"));
+    }
+
+    @Override
+    protected File storeLibraryFile(LibrarySource source, String libraryPackage, String libraryName) throws IOException {
+        HashCode hash;
+        long size;
+        JniLibraryManifest.Entry manifestEntry = source.getManifestEntry();
+        if (manifestEntry != null) {
+            // indexed at build time, the library is not read to find its entry
+            hash = HashCode.fromString(manifestEntry.getSha256());
+            size = manifestEntry.getSize();
+        } else {
+            try (CountingInputStream countingInputStream = new CountingInputStream(source.openStream())) {
+                HashingInputStream hashingInputStream = new HashingInputStream(Hashing.sha256(), countingInputStream);
+                ByteStreams.copy(hashingInputStream, ByteStreams.nullOutputStream());
+                hash = hashingInputStream.hash();
+                size = countingInputStream.getCount();
+            }
+        }
+
+        File entryDirectory = new File(getLibraryParentDirectory(libraryPackage), hash + "-" + size);
+        return storeEntry(source, entryDirectory, libraryName, hash, size);
+    }
+
+    /**
+     * Stores the library in its cache entry, unless the entry has a valid copy already.
+     *
+     * @param source Content of the library.
+     * @param entryDirectory Directory of the cache entry of the library.
+     * @param libraryName Name of the library.
+     * @param hash Hash of the content of the library.
+     * @param size Size of the content of the library.
+     * @return The library file in the cache entry.
+     * @throws IOException If the library could not be written.
+     */
+    File storeEntry(LibrarySource source, File entryDirectory, String libraryName, HashCode hash, long size) throws IOException {
+        File finalLibraryFile = new File(entryDirectory, libraryName);
+        if (source.getManifestEntry() != null
+                ? finalLibraryFile.isFile() && finalLibraryFile.length() == size
+                : isValid(finalLibraryFile, hash, size)) {
+            return finalLibraryFile;
+        }
+
+        entryDirectory.mkdirs();
+        File temporaryFile = File.createTempFile(libraryName, ".tmp", entryDirectory);
+        try {
+            source.copyTo(temporaryFile);
+            if (!isValid(temporaryFile, hash, size)) {
+                throw new IOException("Content of library " + libraryName + " changed while it was stored.");
+            }
+            java.nio.file.Files.move(temporaryFile.toPath(), finalLibraryFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporaryFile.delete();
+        }
+        return finalLibraryFile;
+    }
+
+    /**
+     * The cache is kept when the repository is closed.
+     */
+    @Override
+    protected void cleanRepositoryDirectory() throws IOException {
+        // nothing to clean, the cache survives the repository
+    }
+
+    @Override
+    protected Runnable cleanupAction() {
+        return null;
+    }
+
+    /**
+     * The cache entry of an evicted library is kept, so its next store reuses it.
+     */
+    @Override
+    protected void evictLibraryFile(File libraryFile) {
+        // the cache survives the eviction
+    }
+
+    private static boolean isValid(File file, HashCode hash, long size) throws IOException {
+        return file.isFile() && file.length() == size && Files.hash(file, Hashing.sha256()).equals(hash);
+    }
+}
@@ -1,12 +1,18 @@
 package org.blackbox.jnibox;
 
+import com.google.common.base.Preconditions;
+
 import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * User free configurable Jni repository.
  */
 public class ConfigurableJniRepository extends AbstractJniRepository {
 
+    private final ConcurrentMap<JniLibraryId, JniLibraryLoader> jniLibraryLoaders = new ConcurrentHashMap<>();
+
     ConfigurableJniRepository(File repositoryDirectory, JniLibraryLoader jniLibraryLoader) {
         super(repositoryDirectory, jniLibraryLoader);
     }
@@ -15,4 +21,25 @@ public class ConfigurableJniRepository extends AbstractJniRepository {
         super(repositoryDirectory);
     }
 
+    /**
+     * Sets the loader of a library, instead of the loader of the repository (System.load), for
+     * instance a loader with custom dlopen flags (see the jnibox-ffm module). It applies to the
+     * next loading of the library.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library.
+     * @param jniLibraryLoader The loader of the library.
+     */
+    public void setJniLibraryLoader(String libraryPackage, String libraryName, JniLibraryLoader jniLibraryLoader) {
+        Preconditions.checkNotNull(libraryPackage);
+        Preconditions.checkNotNull(libraryName);
+        Preconditions.checkNotNull(jniLibraryLoader);
+        jniLibraryLoaders.put(new JniLibraryId(libraryPackage, libraryName), jniLibraryLoader);
+    }
+
+    @Override
+    protected JniLibraryLoader getJniLibraryLoader(JniLibrary library) {
+        JniLibraryLoader jniLibraryLoader = jniLibraryLoaders.get(library.getLibraryId());
+        return jniLibraryLoader == null ? super.getJniLibraryLoader(library) : jniLibraryLoader;
+    }
 }
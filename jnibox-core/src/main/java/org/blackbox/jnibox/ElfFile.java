@@ -0,0 +1,263 @@
+package org.blackbox.jnibox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Header and dynamic section of an ELF shared library: its class (32 or 64 bits), its machine
+ * and the libraries it needs (DT_NEEDED). The dynamic section is found through the program
+ * headers, like the dynamic linker does, so stripped libraries are supported too.
+ */
+final class ElfFile {
+
+    static final int CLASS_32 = 1;
+    static final int CLASS_64 = 2;
+
+    static final int EM_386 = 3;
+    static final int EM_PPC64 = 21;
+    static final int EM_S390 = 22;
+    static final int EM_ARM = 40;
+    static final int EM_X86_64 = 62;
+    static final int EM_AARCH64 = 183;
+    static final int EM_RISCV = 243;
+
+    private static final int PT_LOAD = 1;
+    private static final int PT_DYNAMIC = 2;
+    private static final long DT_NULL = 0;
+    private static final long DT_NEEDED = 1;
+    private static final long DT_STRTAB = 5;
+    private static final long DT_SONAME = 14;
+
+    private final int elfClass;
+    private final int machine;
+    private final String soname;
+    private final List<String> needed;
+
+    private ElfFile(int elfClass, int machine, String soname, List<String> needed) {
+        this.elfClass = elfClass;
+        this.machine = machine;
+        this.soname = soname;
+        this.needed = Collections.unmodifiableList(needed);
+    }
+
+    /**
+     * Reads the ELF header and the dynamic section of the given file.
+     *
+     * @param file The library file.
+     * @return The ELF file, or null if the file is not an ELF file.
+     * @throws IOException If the file could not be read or is a corrupted ELF file.
+     */
+    static ElfFile read(File file) throws IOException {
+        assert file != null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < 52) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != 0x7f454c46) {
+                return null;
+            }
+            try {
+                return read(buffer);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupted ELF file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the ELF header and the dynamic section of the given content of a library.
+     *
+     * @param content The content of the library.
+     * @return The ELF file, or null if the content is not an ELF file.
+     * @throws IOException If the content is a corrupted ELF file.
+     */
+    static ElfFile read(byte[] content) throws IOException {
+        assert content != null;
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (content.length < 52 || buffer.getInt(0) != 0x7f454c46) {
+            return null;
+        }
+        try {
+            return read(buffer);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted ELF content", e);
+        }
+    }
+
+    private static ElfFile read(ByteBuffer buffer) throws IOException {
+        int elfClass = buffer.get(4);
+        if (elfClass != CLASS_32 && elfClass != CLASS_64) {
+            throw new IOException("Unknown ELF class " + elfClass);
+        }
+        boolean is64 = elfClass == CLASS_64;
+        buffer.order(buffer.get(5) == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        int machine = buffer.getShort(18) & 0xFFFF;
+
+        long programHeaders = is64 ? buffer.getLong(32) : buffer.getInt(28) & 0xFFFFFFFFL;
+        int programHeaderSize = buffer.getShort(is64 ? 54 : 42) & 0xFFFF;
+        int programHeaderCount = buffer.getShort(is64 ? 56 : 44) & 0xFFFF;
+
+        List<long[]> loads = new ArrayList<>();
+        long dynamic = -1;
+        long dynamicSize = 0;
+        for (int i = 0; i < programHeaderCount; i++) {
+            int header = (int) (programHeaders + (long) i * programHeaderSize);
+            int type = buffer.getInt(header);
+            long offset = is64 ? buffer.getLong(header + 8) : buffer.getInt(header + 4) & 0xFFFFFFFFL;
+            long virtualAddress = is64 ? buffer.getLong(header + 16) : buffer.getInt(header + 8) & 0xFFFFFFFFL;
+            long fileSize = is64 ? buffer.getLong(header + 32) : buffer.getInt(header + 16) & 0xFFFFFFFFL;
+            if (type == PT_LOAD) {
+                loads.add(new long[]{offset, virtualAddress, fileSize});
+            } else if (type == PT_DYNAMIC) {
+                dynamic = offset;
+                dynamicSize = fileSize;
+            }
+        }
+        if (dynamic < 0) {
+            return new ElfFile(elfClass, machine, null, new ArrayList<String>());
+        }
+
+        int entrySize = is64 ? 16 : 8;
+        long stringTable = -1;
+        long soname = -1;
+        List<Long> needed = new ArrayList<>();
+        for (long entry = dynamic; entry + entrySize <= dynamic + dynamicSize; entry += entrySize) {
+            long tag = is64 ? buffer.getLong((int) entry) : buffer.getInt((int) entry);
+            long value = is64 ? buffer.getLong((int) entry + 8) : buffer.getInt((int) entry + 4) & 0xFFFFFFFFL;
+            if (tag == DT_NULL) {
+                break;
+            } else if (tag == DT_NEEDED) {
+                needed.add(value);
+            } else if (tag == DT_SONAME) {
+                soname = value;
+            } else if (tag == DT_STRTAB) {
+                stringTable = toOffset(loads, value);
+            }
+        }
+        if (stringTable < 0) {
+            throw new IOException("ELF dynamic section without string table");
+        }
+
+        List<String> neededNames = new ArrayList<>(needed.size());
+        for (long name : needed) {
+            neededNames.add(string(buffer, stringTable + name));
+        }
+        return new ElfFile(elfClass, machine, soname < 0 ? null : string(buffer, stringTable + soname), neededNames);
+    }
+
+    private static long toOffset(List<long[]> loads, long virtualAddress) {
+        for (long[] load : loads) {
+            if (virtualAddress >= load[1] && virtualAddress < load[1] + load[2]) {
+                return virtualAddress - load[1] + load[0];
+            }
+        }
+        return -1;
+    }
+
+    private static String string(ByteBuffer buffer, long offset) {
+        int end = (int) offset;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - (int) offset];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get((int) offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ELF class of the running JVM, CLASS_32 or CLASS_64.
+     *
+     * @return The ELF class of the running JVM.
+     */
+    static int currentElfClass() {
+        return "32".equals(System.getProperty("sun.arch.data.model")) ? CLASS_32 : CLASS_64;
+    }
+
+    /**
+     * Returns the ELF machine of the running JVM, or -1 if the architecture is unknown.
+     *
+     * @return The ELF machine of the running JVM.
+     */
+    static int currentMachine() {
+        String arch = System.getProperty("os.arch", "").toLowerCase();
+        switch (arch) {
+            case "amd64":
+            case "x86_64":
+                return EM_X86_64;
+            case "x86":
+            case "i386":
+            case "i686":
+                return EM_386;
+            case "aarch64":
+            case "arm64":
+                return EM_AARCH64;
+            case "arm":
+            case "arm32":
+                return EM_ARM;
+            case "ppc64":
+            case "ppc64le":
+                return EM_PPC64;
+            case "s390x":
+                return EM_S390;
+            case "riscv64":
+                return EM_RISCV;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Checks that this library can be loaded in the running JVM.
+     *
+     * @throws IOException If the ELF class or the machine of the library does not match the JVM.
+     */
+    void checkLoadable() throws IOException {
+        if (elfClass != currentElfClass()) {
+            throw new IOException("ELF class " + (elfClass == CLASS_64 ? "64" : "32") + " does not match the "
+                    + (currentElfClass() == CLASS_64 ? "64" : "32") + " bits JVM");
+        }
+        int currentMachine = currentMachine();
+        if (currentMachine >= 0 && machine != currentMachine) {
+            throw new IOException("ELF machine " + machine + " does not match the JVM machine " + currentMachine
+                    + " (" + System.getProperty("os.arch") + ')');
+        }
+    }
+
+    int getElfClass() {
+        return elfClass;
+    }
+
+    int getMachine() {
+        return machine;
+    }
+
+    /**
+     * Returns the DT_SONAME of the library, or null if it has not.
+     *
+     * @return The DT_SONAME of the library.
+     */
+    String getSoname() {
+        return soname;
+    }
+
+    /**
+     * Returns the DT_NEEDED entries of the library, in order.
+     *
+     * @return The names of the libraries needed by the library.
+     */
+    List<String> getNeeded() {
+        return needed;
+    }
+}
@@ -1,5 +1,11 @@
 package org.blackbox.jnibox;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Model of a storeAndLoad JNI library. It stores the basic information of the library.
  */
@@ -13,10 +19,38 @@ public final class JniLibrary {
 
     private final String libraryPackage;
     private final String libraryName;
-    private String libraryPath;
-    private Status status;
+    private final JniLibraryId libraryId;
+    private volatile String libraryPath;
+    private volatile Status status;
     private final JniRepository jniRepository;
 
+    /**
+     * Store and loading of the library, shared by all the callers of the repository.
+     */
+    final AtomicReference<CompletableFuture<JniLibrary>> storing = new AtomicReference<>();
+    final AtomicReference<CompletableFuture<JniLibrary>> loading = new AtomicReference<>();
+
+    /**
+     * Source of the library when it is declared to be stored on its first loading, null if it
+     * is not declared.
+     */
+    volatile Callable<LibrarySource> declaredSource;
+
+    /**
+     * Source of the last store of the library, null until it is stored.
+     */
+    volatile Callable<LibrarySource> storedSource;
+
+    /**
+     * Libraries of the repository that this library needs, null until they are resolved.
+     */
+    volatile List<JniLibrary> dependencies;
+
+    /**
+     * SONAME of the stored library, or its name when it has none, null until it is read.
+     */
+    volatile String soname;
+
     JniLibrary(String libraryPackage, String libraryName, JniRepository jniRepository) {
         this(libraryPackage, libraryName, Status.DECLARED, jniRepository);
     }
@@ -30,6 +64,7 @@ public final class JniLibrary {
 
         this.libraryPackage = libraryPackage;
         this.libraryName = libraryName;
+        this.libraryId = new JniLibraryId(libraryPackage, libraryName);
         this.status = status;
         this.jniRepository = jniRepository;
     }
@@ -52,6 +87,15 @@ public final class JniLibrary {
         return libraryName;
     }
 
+    /**
+     * Returns the identifier of the library in the repository.
+     *
+     * @return The identifier of the library.
+     */
+    public JniLibraryId getLibraryId() {
+        return libraryId;
+    }
+
     /**
      * Returns the library path where it is stored.
      *
@@ -70,6 +114,17 @@ public final class JniLibrary {
         this.status = status;
     }
 
+    /**
+     * Returns the libraries of the repository that this library needs, when the repository
+     * resolves the dependencies and this library has been loaded.
+     *
+     * @return The libraries of the repository that this library needs, empty if they are not resolved.
+     */
+    public List<JniLibrary> getDependencies() {
+        List<JniLibrary> dependencies = this.dependencies;
+        return dependencies == null ? Collections.<JniLibrary>emptyList() : dependencies;
+    }
+
     /**
      * Returns the repository that manages this library.
      *
@@ -92,6 +147,21 @@ public final class JniLibrary {
         this.getJniRepository().load(this);
     }
 
+    /**
+     * Loads the library if it is not loaded yet, storing it first if it is only declared. When
+     * the library is already loaded it only reads its status, so it can be called before every
+     * use of the library.
+     *
+     * @return This library, loaded.
+     * @throws JniRepositoryException Wraps any exception thrown during the process of store and loading.
+     */
+    public JniLibrary ensureLoaded() throws JniRepositoryException {
+        if (status != Status.LOADED) {
+            this.getJniRepository().load(this);
+        }
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,60 @@
+package org.blackbox.jnibox;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Identifier of a JNI library in a repository, that is its package and its name.
+ */
+public final class JniLibraryId {
+
+    private final String libraryPackage;
+    private final String libraryName;
+
+    public JniLibraryId(String libraryPackage, String libraryName) {
+        this.libraryPackage = Preconditions.checkNotNull(libraryPackage);
+        this.libraryName = Preconditions.checkNotNull(libraryName);
+    }
+
+    /**
+     * Returns the library package.
+     *
+     * @return the library package.
+     */
+    public String getLibraryPackage() {
+        return libraryPackage;
+    }
+
+    /**
+     * Returns the library name.
+     *
+     * @return The library name.
+     */
+    public String getLibraryName() {
+        return libraryName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        JniLibraryId that = (JniLibraryId) o;
+
+        if (!libraryName.equals(that.libraryName)) return false;
+        if (!libraryPackage.equals(that.libraryPackage)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = libraryPackage.hashCode();
+        result = 31 * result + libraryName.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "JniLibraryId(" + libraryName + '.' + libraryPackage + ')';
+    }
+}
@@ -0,0 +1,357 @@
+package org.blackbox.jnibox;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the native libraries packed in a jar, written at build time (see the
+ * jnibox-maven-plugin) in META-INF/jnibox/index. For every library it keeps its package, its
+ * name, its platform directory, the size and the SHA-256 hash of its (decompressed) content, the
+ * path of its resource and the libraries it needs (DT_NEEDED). With the index the repositories
+ * find the resources without probing the classpath and the cached repositories find their
+ * entries without reading the libraries.
+ *
+ * The index is a text file with a line per library and the fields separated by tabs:
+ *
+ * ${package} ${name} ${platform|-} ${size} ${sha256} ${resourcePath} ${needed,...|-}
+ */
+public final class JniLibraryManifest {
+
+    /**
+     * Location of the index in the jars.
+     */
+    public static final String LOCATION = "META-INF/jnibox/index";
+
+    private static final String HEADER = "# jnibox index 1";
+    private static final String NONE = "-";
+    private static final JniLibraryManifest EMPTY = new JniLibraryManifest(Collections.<Entry>emptyList());
+
+    private final List<Entry> entries;
+
+    private JniLibraryManifest(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Scans the libraries of the given packages in a classes directory. Every file of the
+     * directory of a package is a library, and every file of a subdirectory of a package is a
+     * library of the platform named like the subdirectory (see JniPlatform). Compressed
+     * libraries (libfoo.so.gz...) are indexed with their plain name and the hash of their
+     * decompressed content.
+     *
+     * @param classesDirectory The root of the resources.
+     * @param libraryPackages The packages of the libraries.
+     * @return The index of the libraries.
+     * @throws IOException If a library could not be read.
+     */
+    public static JniLibraryManifest scan(File classesDirectory, Collection<String> libraryPackages) throws IOException {
+        Preconditions.checkNotNull(classesDirectory);
+        Preconditions.checkNotNull(libraryPackages);
+        List<Entry> entries = new ArrayList<>();
+        for (String libraryPackage : new LinkedHashSet<>(libraryPackages)) {
+            String packagePath = libraryPackage.replace('.', '/');
+            File packageDirectory = new File(classesDirectory, packagePath);
+            File[] files = packageDirectory.listFiles();
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isFile()) {
+                    entries.add(scan(file, libraryPackage, null, packagePath + '/' + file.getName()));
+                } else if (file.isDirectory()) {
+                    File[] platformFiles = file.listFiles(File::isFile);
+                    Arrays.sort(platformFiles);
+                    for (File platformFile : platformFiles) {
+                        entries.add(scan(platformFile, libraryPackage, file.getName(),
+                                packagePath + '/' + file.getName() + '/' + platformFile.getName()));
+                    }
+                }
+            }
+        }
+        return new JniLibraryManifest(entries);
+    }
+
+    private static Entry scan(File file, String libraryPackage, String platform, String resourcePath) throws IOException {
+        LibraryCompression compression = LibraryCompression.of(file.getName());
+        String libraryName = compression == null
+                ? file.getName()
+                : file.getName().substring(0, file.getName().length() - compression.getExtension().length());
+        byte[] content;
+        try (InputStream stream = compression == null
+                ? LibrarySource.of(file).openStream()
+                : LibrarySource.compressed(file.toURI().toURL(), compression).openStream()) {
+            content = ByteStreams.toByteArray(stream);
+        }
+        ElfFile elfFile = ElfFile.read(content);
+        List<String> needed = elfFile == null ? Collections.<String>emptyList() : elfFile.getNeeded();
+        return new Entry(libraryPackage, libraryName, platform, content.length,
+                Hashing.sha256().hashBytes(content).toString(), resourcePath, needed);
+    }
+
+    /**
+     * Reads and merges the indexes of all the jars of the class loader.
+     *
+     * @param classLoader The class loader of the jars.
+     * @return The merged index, empty if there is none.
+     * @throws IOException If an index could not be read.
+     */
+    public static JniLibraryManifest load(ClassLoader classLoader) throws IOException {
+        Preconditions.checkNotNull(classLoader);
+        Enumeration<URL> urls = classLoader.getResources(LOCATION);
+        if (!urls.hasMoreElements()) {
+            return EMPTY;
+        }
+        List<Entry> entries = new ArrayList<>();
+        while (urls.hasMoreElements()) {
+            try (InputStream stream = urls.nextElement().openStream()) {
+                entries.addAll(read(stream).getEntries());
+            }
+        }
+        return new JniLibraryManifest(entries);
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param stream The stream of the index, it is not closed.
+     * @return The index.
+     * @throws IOException If the index could not be read or is corrupted.
+     */
+    public static JniLibraryManifest read(InputStream stream) throws IOException {
+        Preconditions.checkNotNull(stream);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        List<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            List<String> fields = Splitter.on('\t').splitToList(line);
+            if (fields.size() != 7) {
+                throw new IOException("Corrupted jnibox index line: " + line);
+            }
+            try {
+                entries.add(new Entry(fields.get(0), fields.get(1), NONE.equals(fields.get(2)) ? null : fields.get(2),
+                        Long.parseLong(fields.get(3)), fields.get(4), fields.get(5),
+                        NONE.equals(fields.get(6)) ? Collections.<String>emptyList() : Splitter.on(',').splitToList(fields.get(6))));
+            } catch (NumberFormatException e) {
+                throw new IOException("Corrupted jnibox index line: " + line, e);
+            }
+        }
+        return new JniLibraryManifest(entries);
+    }
+
+    /**
+     * Writes the index in the given file, creating its directory.
+     *
+     * @param file The index file.
+     * @throws IOException If the index could not be written.
+     */
+    public void write(File file) throws IOException {
+        Preconditions.checkNotNull(file);
+        file.getParentFile().mkdirs();
+        try (OutputStream stream = new FileOutputStream(file)) {
+            write(stream);
+        }
+    }
+
+    /**
+     * Writes the index.
+     *
+     * @param stream The stream of the index, it is not closed.
+     * @throws IOException If the index could not be written.
+     */
+    public void write(OutputStream stream) throws IOException {
+        Preconditions.checkNotNull(stream);
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.write('\n');
+        Joiner joiner = Joiner.on('\t');
+        for (Entry entry : entries) {
+            writer.write(joiner.join(entry.libraryPackage, entry.libraryName, entry.platform == null ? NONE : entry.platform,
+                    entry.size, entry.sha256, entry.resourcePath,
+                    entry.needed.isEmpty() ? NONE : Joiner.on(',').join(entry.needed)));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns true if the index has no library.
+     *
+     * @return True if the index has no library.
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the entry of the library for the platform: the entry of the best matching
+     * platform directory, or the entry without platform if the library has no variant for the
+     * platform or the platform is null.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library.
+     * @param platform Platform of the library, or null.
+     * @return The entry of the library, or null if it is not in the index.
+     */
+    public Entry find(String libraryPackage, String libraryName, JniPlatform platform) {
+        List<String> directories = platform == null ? Collections.<String>emptyList() : platform.getDirectories();
+        Entry best = null;
+        int bestRank = Integer.MAX_VALUE;
+        for (Entry entry : entries) {
+            if (entry.libraryPackage.equals(libraryPackage) && entry.libraryName.equals(libraryName)) {
+                int rank = entry.platform == null ? directories.size() : directories.indexOf(entry.platform);
+                if (rank >= 0 && rank < bestRank) {
+                    best = entry;
+                    bestRank = rank;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the names of the libraries of the package that have an entry for the platform.
+     *
+     * @param libraryPackage Package of the libraries.
+     * @param platform Platform of the libraries, or null.
+     * @return The names of the libraries.
+     */
+    public Set<String> getLibraryNames(String libraryPackage, JniPlatform platform) {
+        Set<String> libraryNames = new LinkedHashSet<>();
+        for (Entry entry : entries) {
+            if (entry.libraryPackage.equals(libraryPackage)
+                    && (entry.platform == null || (platform != null && platform.getDirectories().contains(entry.platform)))) {
+                libraryNames.add(entry.libraryName);
+            }
+        }
+        return libraryNames;
+    }
+
+    /**
+     * Returns true if the index has libraries of the package.
+     *
+     * @param libraryPackage Package of the libraries.
+     * @return True if the index has libraries of the package.
+     */
+    public boolean containsPackage(String libraryPackage) {
+        for (Entry entry : entries) {
+            if (entry.libraryPackage.equals(libraryPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A library of the index.
+     */
+    public static final class Entry {
+
+        private final String libraryPackage;
+        private final String libraryName;
+        private final String platform;
+        private final long size;
+        private final String sha256;
+        private final String resourcePath;
+        private final List<String> needed;
+
+        Entry(String libraryPackage, String libraryName, String platform, long size, String sha256,
+              String resourcePath, List<String> needed) {
+            this.libraryPackage = Preconditions.checkNotNull(libraryPackage);
+            this.libraryName = Preconditions.checkNotNull(libraryName);
+            this.platform = platform;
+            this.size = size;
+            this.sha256 = Preconditions.checkNotNull(sha256);
+            this.resourcePath = Preconditions.checkNotNull(resourcePath);
+            this.needed = Collections.unmodifiableList(new ArrayList<>(needed));
+        }
+
+        public String getLibraryPackage() {
+            return libraryPackage;
+        }
+
+        public String getLibraryName() {
+            return libraryName;
+        }
+
+        /**
+         * Returns the platform directory of the library, or null if it is in its package.
+         *
+         * @return The platform directory of the library.
+         */
+        public String getPlatform() {
+            return platform;
+        }
+
+        /**
+         * Returns the size of the decompressed content of the library.
+         *
+         * @return The size of the library.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the hex SHA-256 hash of the decompressed content of the library.
+         *
+         * @return The hash of the library.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * Returns the path of the resource of the library, compressed or not.
+         *
+         * @return The path of the resource.
+         */
+        public String getResourcePath() {
+            return resourcePath;
+        }
+
+        /**
+         * Returns the names of the libraries that the library needs (DT_NEEDED).
+         *
+         * @return The names of the needed libraries.
+         */
+        public List<String> getNeeded() {
+            return needed;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry(" + resourcePath + ')';
+        }
+    }
+}
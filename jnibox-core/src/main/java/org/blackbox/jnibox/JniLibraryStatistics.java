@@ -0,0 +1,125 @@
+package org.blackbox.jnibox;
+
+/**
+ * Snapshot of the statistics of one library of a repository, see JniRepositoryStatistics.
+ */
+public final class JniLibraryStatistics {
+
+    private final String libraryPackage;
+    private final String libraryName;
+    private final String status;
+    private final String libraryPath;
+    private final long bytesExtracted;
+    private final long extractionMicros;
+    private final long loadMicros;
+    private final long statusTransitions;
+    private final long storeFailures;
+    private final long loadFailures;
+    private final String lastFailure;
+    private final long diskFootprint;
+
+    JniLibraryStatistics(String libraryPackage, String libraryName, String status, String libraryPath,
+                         long bytesExtracted, long extractionMicros, long loadMicros, long statusTransitions,
+                         long storeFailures, long loadFailures, String lastFailure, long diskFootprint) {
+        this.libraryPackage = libraryPackage;
+        this.libraryName = libraryName;
+        this.status = status;
+        this.libraryPath = libraryPath;
+        this.bytesExtracted = bytesExtracted;
+        this.extractionMicros = extractionMicros;
+        this.loadMicros = loadMicros;
+        this.statusTransitions = statusTransitions;
+        this.storeFailures = storeFailures;
+        this.loadFailures = loadFailures;
+        this.lastFailure = lastFailure;
+        this.diskFootprint = diskFootprint;
+    }
+
+    public String getLibraryPackage() {
+        return libraryPackage;
+    }
+
+    public String getLibraryName() {
+        return libraryName;
+    }
+
+    /**
+     * Returns the current status of the library, see JniLibrary.Status.
+     *
+     * @return The current status of the library.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the path where the library is stored, or null if it is not stored.
+     *
+     * @return The path where the library is stored.
+     */
+    public String getLibraryPath() {
+        return libraryPath;
+    }
+
+    /**
+     * Returns the bytes written to the repository by the last store of the library.
+     *
+     * @return The bytes written by the last store.
+     */
+    public long getBytesExtracted() {
+        return bytesExtracted;
+    }
+
+    /**
+     * Returns the time spent by the last store of the library in microseconds.
+     *
+     * @return The time spent by the last store in microseconds.
+     */
+    public long getExtractionMicros() {
+        return extractionMicros;
+    }
+
+    /**
+     * Returns the time spent by the last loading of the library in microseconds.
+     *
+     * @return The time spent by the last loading in microseconds.
+     */
+    public long getLoadMicros() {
+        return loadMicros;
+    }
+
+    /**
+     * Returns the amount of status changes of the library.
+     *
+     * @return The amount of status changes.
+     */
+    public long getStatusTransitions() {
+        return statusTransitions;
+    }
+
+    public long getStoreFailures() {
+        return storeFailures;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    /**
+     * Returns the description of the last failure of the library, or null if it never failed.
+     *
+     * @return The description of the last failure.
+     */
+    public String getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Returns the current size of the stored file, 0 if it is not stored or was removed.
+     *
+     * @return The current size of the stored file.
+     */
+    public long getDiskFootprint() {
+        return diskFootprint;
+    }
+}
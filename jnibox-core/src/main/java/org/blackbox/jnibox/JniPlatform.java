@@ -0,0 +1,202 @@
+package org.blackbox.jnibox;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Operating system, architecture and, on linux, C library of a platform. The variants of a
+ * library for several platforms are packed in platform directories of its package:
+ *
+ * ${libraryPackagePath}/${os}-${arch}[-${libc}]/${libraryName}
+ *
+ * like org/company/linux-x86_64/libfoo.so, org/company/linux-x86_64-musl/libfoo.so or
+ * org/company/osx-aarch64/libfoo.so. The os is linux, osx, windows, freebsd... the arch is
+ * x86_64, x86, aarch64, arm, ppc64le, s390x, riscv64... and the libc is gnu or musl. A linux
+ * directory without libc holds glibc libraries.
+ */
+public final class JniPlatform {
+
+    public static final String GNU = "gnu";
+    public static final String MUSL = "musl";
+
+    private static final JniPlatform CURRENT = detect();
+
+    private final String os;
+    private final String arch;
+    private final String libc;
+
+    private JniPlatform(String os, String arch, String libc) {
+        this.os = os;
+        this.arch = arch;
+        this.libc = libc;
+    }
+
+    /**
+     * Returns the platform with the given os, arch and libc.
+     *
+     * @param os Operating system, like linux.
+     * @param arch Architecture, like x86_64.
+     * @param libc C library, gnu or musl, or null if it does not apply.
+     * @return The platform.
+     */
+    public static JniPlatform of(String os, String arch, String libc) {
+        Preconditions.checkNotNull(os);
+        Preconditions.checkNotNull(arch);
+        return new JniPlatform(os, arch, libc);
+    }
+
+    /**
+     * Returns the platform of the running JVM.
+     *
+     * @return The platform of the running JVM.
+     */
+    public static JniPlatform current() {
+        return CURRENT;
+    }
+
+    public String getOs() {
+        return os;
+    }
+
+    public String getArch() {
+        return arch;
+    }
+
+    /**
+     * Returns the C library of the platform, gnu or musl, or null if it does not apply.
+     *
+     * @return The C library of the platform.
+     */
+    public String getLibc() {
+        return libc;
+    }
+
+    /**
+     * Returns the names of the platform directories whose libraries can be loaded in this
+     * platform, from the best to the worst match. Musl platforms only match musl directories,
+     * glibc platforms match gnu directories and then the directories without libc.
+     *
+     * @return The names of the compatible platform directories.
+     */
+    public List<String> getDirectories() {
+        String directory = os + '-' + arch;
+        List<String> directories = new ArrayList<>(2);
+        if (libc == null) {
+            directories.add(directory);
+        } else if (MUSL.equals(libc)) {
+            directories.add(directory + '-' + MUSL);
+        } else {
+            directories.add(directory + '-' + libc);
+            directories.add(directory);
+        }
+        return Collections.unmodifiableList(directories);
+    }
+
+    private static JniPlatform detect() {
+        String os = normalizeOs(System.getProperty("os.name", ""));
+        String arch = normalizeArch(System.getProperty("os.arch", ""));
+        String libc = null;
+        if ("linux".equals(os)) {
+            libc = isMusl() ? MUSL : GNU;
+        }
+        return new JniPlatform(os, arch, libc);
+    }
+
+    private static String normalizeOs(String osName) {
+        String os = osName.toLowerCase(Locale.ROOT);
+        if (os.startsWith("linux")) {
+            return "linux";
+        } else if (os.startsWith("mac") || os.startsWith("darwin")) {
+            return "osx";
+        } else if (os.startsWith("windows")) {
+            return "windows";
+        } else if (os.startsWith("sunos")) {
+            return "solaris";
+        }
+        return os.replaceAll("[^a-z0-9]", "");
+    }
+
+    private static String normalizeArch(String osArch) {
+        String arch = osArch.toLowerCase(Locale.ROOT);
+        switch (arch) {
+            case "amd64":
+            case "x86_64":
+                return "x86_64";
+            case "x86":
+            case "i386":
+            case "i486":
+            case "i586":
+            case "i686":
+                return "x86";
+            case "aarch64":
+            case "arm64":
+                return "aarch64";
+            case "arm":
+            case "arm32":
+                return "arm";
+            default:
+                return arch.replaceAll("[^a-z0-9_]", "");
+        }
+    }
+
+    /**
+     * The libc is the one the JVM runs on, not the ones installed: a glibc distribution may have
+     * the musl package too. The musl dynamic linker, ld-musl-${arch}.so.1, is also its libc, so it
+     * is mapped in the JVM if and only if the JVM runs on musl.
+     */
+    private static boolean isMusl() {
+        try (Stream<String> maps = Files.lines(Paths.get("/proc/self/maps"), StandardCharsets.ISO_8859_1)) {
+            return isMusl(maps);
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the musl dynamic linker is one of the mapped files.
+     *
+     * @param maps The lines of /proc/self/maps.
+     * @return True if the process runs on musl.
+     */
+    static boolean isMusl(Stream<String> maps) {
+        return maps.anyMatch(line -> {
+            int path = line.lastIndexOf('/');
+            return path >= 0 && line.startsWith("ld-musl-", path + 1);
+        });
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        JniPlatform that = (JniPlatform) o;
+
+        if (!os.equals(that.os)) return false;
+        if (!arch.equals(that.arch)) return false;
+        return libc == null ? that.libc == null : libc.equals(that.libc);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = os.hashCode();
+        result = 31 * result + arch.hashCode();
+        result = 31 * result + (libc == null ? 0 : libc.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return os + '-' + arch + (libc == null ? "" : "-" + libc);
+    }
+}
@@ -1,5 +1,11 @@
 package org.blackbox.jnibox;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 /**
  * A JniLoader is an object that given a package and a library name like 'org.mycompany.myproject'
  * and 'complex_maths' that is located as a packed resource of the application (in some jar or nar)
@@ -7,6 +13,10 @@ package org.blackbox.jnibox;
  *
  * The implementation provides synchronization in the store phase so you can store
  * multiple libraries asynchronously and the store process will be synchronized.
+ *
+ * Store and loading are idempotent: storing or loading a library that is already stored or
+ * loaded returns the same library, and concurrent callers of the same library wait for the one
+ * store and loading in flight instead of repeating them.
  */
 public interface JniRepository {
 
@@ -21,23 +31,27 @@ public interface JniRepository {
     JniLibrary storeAndLoad(String libraryPackage, String libraryName) throws JniRepositoryException;
 
     /**
-     * Stores a library that is stored in the classpath as resource.
+     * Stores a library that is stored in the classpath as resource. A library that is already
+     * stored is returned only if it was stored from the classpath.
      *
      * @param libraryPackage Package of the library.
      * @param libraryName Name of the library in the package.
      * @return The JNI library object with the attached info of the storing.
-     * @throws JniRepositoryException Wraps any exception thrown during the process of store.
+     * @throws JniRepositoryException Wraps any exception thrown during the process of store, or
+     * the library is already stored from a path.
      */
     JniLibrary store(String libraryPackage, String libraryName) throws JniRepositoryException;
 
     /**
-     * Stores a library that is stored in the given libraryPath parameter.
+     * Stores a library that is stored in the given libraryPath parameter. A library that is
+     * already stored is returned only if it was stored from the same path.
      *
      * @param libraryPath Path where the library is.
      * @param libraryPackage Package of the library.
      * @param libraryName Name of the library in the package.
      * @return The JNI library object with the attached info of the storing.
-     * @throws JniRepositoryException Wraps any exception thrown during the process of store.
+     * @throws JniRepositoryException Wraps any exception thrown during the process of store, or
+     * the library is already stored from another path or from the classpath.
      */
     JniLibrary store(String libraryPath, String libraryPackage, String libraryName) throws JniRepositoryException;
 
@@ -53,6 +67,153 @@ public interface JniRepository {
     JniLibrary storeAndLoad(String libraryPath, String libraryPackage, String libraryName) throws JniRepositoryException;
 
 
+    /**
+     * Declares a library that is stored in the classpath as resource without storing it. The
+     * library is stored and loaded on its first loading, see JniLibrary.ensureLoaded(), so a
+     * declared library that is never used costs no I/O.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return The JNI library object, DECLARED unless it was already stored.
+     */
+    JniLibrary declare(String libraryPackage, String libraryName);
+
+    /**
+     * Declares a library that is stored in the given libraryPath parameter without storing it.
+     *
+     * @param libraryPath Path where the library is.
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return The JNI library object, DECLARED unless it was already stored.
+     * @see #declare(String, String)
+     */
+    JniLibrary declare(String libraryPath, String libraryPackage, String libraryName);
+
+    /**
+     * Declares many libraries that are stored in the classpath as resources without storing them.
+     *
+     * @param libraryIds Package and name of each library.
+     * @return The JNI library objects, DECLARED unless they were already stored.
+     * @see #declare(String, String)
+     */
+    Set<JniLibrary> declareAll(Collection<JniLibraryId> libraryIds);
+
+    /**
+     * Stores many libraries that are stored in the classpath as resources. The libraries are
+     * stored in parallel and a failure of one library does not abort the others.
+     *
+     * @param libraryIds Package and name of each library.
+     * @return The JNI library objects with the attached info of the storing.
+     * @throws JniRepositoryBulkException If any library failed, with the failure of each one.
+     */
+    Set<JniLibrary> storeAll(Collection<JniLibraryId> libraryIds) throws JniRepositoryException;
+
+    /**
+     * Stores all the libraries that are resources of the given package in the classpath.
+     *
+     * @param libraryPackage Package of the libraries.
+     * @return The JNI library objects with the attached info of the storing.
+     * @throws JniRepositoryBulkException If any library failed, with the failure of each one.
+     * @see #storeAll(java.util.Collection)
+     */
+    Set<JniLibrary> storeAll(String libraryPackage) throws JniRepositoryException;
+
+    /**
+     * Stores and loads many libraries that are stored in the classpath as resources. The
+     * libraries are stored and loaded in parallel and a failure of one library does not abort
+     * the others.
+     *
+     * @param libraryIds Package and name of each library.
+     * @return The JNI library objects with the attached info of the loading.
+     * @throws JniRepositoryBulkException If any library failed, with the failure of each one.
+     */
+    Set<JniLibrary> storeAndLoadAll(Collection<JniLibraryId> libraryIds) throws JniRepositoryException;
+
+    /**
+     * Stores and loads all the libraries that are resources of the given package in the classpath.
+     *
+     * @param libraryPackage Package of the libraries.
+     * @return The JNI library objects with the attached info of the loading.
+     * @throws JniRepositoryBulkException If any library failed, with the failure of each one.
+     * @see #storeAndLoadAll(java.util.Collection)
+     */
+    Set<JniLibrary> storeAndLoadAll(String libraryPackage) throws JniRepositoryException;
+
+
+    /**
+     * Stores asynchronously a library that is stored in the classpath as resource, in the
+     * default executor of the repository.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return A future of the JNI library object with the attached info of the storing. It
+     * completes exceptionally with the JniRepositoryException of the store.
+     * @see #store(String, String)
+     */
+    CompletableFuture<JniLibrary> storeAsync(String libraryPackage, String libraryName);
+
+    /**
+     * Stores asynchronously a library that is stored in the classpath as resource, in the given
+     * executor.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @param executor Executor where the library is stored.
+     * @return A future of the JNI library object with the attached info of the storing. It
+     * completes exceptionally with the JniRepositoryException of the store.
+     * @see #store(String, String)
+     */
+    CompletableFuture<JniLibrary> storeAsync(String libraryPackage, String libraryName, Executor executor);
+
+    /**
+     * Loads asynchronously a library of the repository by its package and name, in the default
+     * executor of the repository.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return A future of the loaded JNI library. It completes exceptionally with the
+     * JniRepositoryException of the loading.
+     * @see #load(String, String)
+     */
+    CompletableFuture<JniLibrary> loadAsync(String libraryPackage, String libraryName);
+
+    /**
+     * Loads asynchronously a library of the repository by its package and name, in the given
+     * executor.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @param executor Executor where the library is loaded.
+     * @return A future of the loaded JNI library. It completes exceptionally with the
+     * JniRepositoryException of the loading.
+     * @see #load(String, String)
+     */
+    CompletableFuture<JniLibrary> loadAsync(String libraryPackage, String libraryName, Executor executor);
+
+    /**
+     * Stores and loads asynchronously a library that is stored in the classpath as resource, in
+     * the default executor of the repository.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @return A future of the JNI library object with the attached info of the loading. It
+     * completes exceptionally with the JniRepositoryException of the store and loading.
+     * @see #storeAndLoad(String, String)
+     */
+    CompletableFuture<JniLibrary> storeAndLoadAsync(String libraryPackage, String libraryName);
+
+    /**
+     * Stores and loads asynchronously a library that is stored in the classpath as resource, in
+     * the given executor.
+     *
+     * @param libraryPackage Package of the library.
+     * @param libraryName Name of the library in the package.
+     * @param executor Executor where the library is stored and loaded.
+     * @return A future of the JNI library object with the attached info of the loading. It
+     * completes exceptionally with the JniRepositoryException of the store and loading.
+     * @see #storeAndLoad(String, String)
+     */
+    CompletableFuture<JniLibrary> storeAndLoadAsync(String libraryPackage, String libraryName, Executor executor);
 
     /**
      * Loads the given JNI library by its package and name.
@@ -78,6 +239,23 @@ public interface JniRepository {
      */
     void close() throws JniRepositoryException;
 
+    /**
+     * Closes the loader without waiting for its files to be removed: the libraries are forgotten
+     * when it returns and the files are removed in the background.
+     *
+     * @return The future of the removal of the files, completed exceptionally with a
+     * JniRepositoryException if they could not be removed.
+     */
+    default CompletableFuture<Void> closeAsync() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                close();
+            } catch (JniRepositoryException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
     /**
      * Returns the repository directory.
      * @return The repository directory.
@@ -0,0 +1,42 @@
+package org.blackbox.jnibox;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thrown by the bulk operations of the repository when some of the libraries failed. It keeps
+ * the libraries that succeeded and the failure of each library that did not.
+ */
+public class JniRepositoryBulkException extends JniRepositoryException {
+
+    private final Set<JniLibrary> libraries;
+    private final Map<JniLibraryId, JniRepositoryException> failures;
+
+    public JniRepositoryBulkException(Set<JniLibrary> libraries, Map<JniLibraryId, JniRepositoryException> failures) {
+        super(failures.size() + " libraries failed: " + failures.keySet());
+        this.libraries = Collections.unmodifiableSet(libraries);
+        this.failures = Collections.unmodifiableMap(failures);
+        for (JniRepositoryException failure : failures.values()) {
+            addSuppressed(failure);
+        }
+    }
+
+    /**
+     * Returns the libraries that succeeded.
+     *
+     * @return The libraries that succeeded.
+     */
+    public Set<JniLibrary> getLibraries() {
+        return libraries;
+    }
+
+    /**
+     * Returns the failure of each library that did not succeed.
+     *
+     * @return The failure of each library that did not succeed.
+     */
+    public Map<JniLibraryId, JniRepositoryException> getFailures() {
+        return failures;
+    }
+}
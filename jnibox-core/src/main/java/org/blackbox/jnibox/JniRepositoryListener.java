@@ -0,0 +1,69 @@
+package org.blackbox.jnibox;
+
+/**
+ * Listener of the store and loading of the libraries of a repository, see
+ * AbstractJniRepository.addListener. The methods are called in the thread that stores or loads
+ * the library, so they must be fast and thread safe. An exception thrown by a listener is
+ * ignored.
+ *
+ * When a repository has no listener, it does not even read the clock.
+ */
+public interface JniRepositoryListener {
+
+    /**
+     * Called when a library has been written to the repository.
+     *
+     * @param library The stored library.
+     * @param bytes Size of the stored file.
+     * @param nanos Time spent reading the source and writing the file, in nanoseconds.
+     */
+    default void stored(JniLibrary library, long bytes, long nanos) {
+    }
+
+    /**
+     * Called when a library has been loaded by the JniLibraryLoader.
+     *
+     * @param library The loaded library.
+     * @param nanos Time spent in the JniLibraryLoader, in nanoseconds.
+     */
+    default void loaded(JniLibrary library, long nanos) {
+    }
+
+    /**
+     * Called when the store of a library failed.
+     *
+     * @param library The library.
+     * @param failure Cause of the failure.
+     */
+    default void storeFailed(JniLibrary library, Throwable failure) {
+    }
+
+    /**
+     * Called when the loading of a library failed.
+     *
+     * @param library The library.
+     * @param failure Cause of the failure.
+     */
+    default void loadFailed(JniLibrary library, Throwable failure) {
+    }
+
+    /**
+     * Called when a stored library is evicted to respect the quota of the repository, see
+     * AbstractJniRepository.setQuota.
+     *
+     * @param library The library, back to DECLARED.
+     * @param bytes Size of the evicted file.
+     */
+    default void evicted(JniLibrary library, long bytes) {
+    }
+
+    /**
+     * Called when the status of a library changes.
+     *
+     * @param library The library.
+     * @param previous Status before the change.
+     * @param current Status after the change.
+     */
+    default void statusChanged(JniLibrary library, JniLibrary.Status previous, JniLibrary.Status current) {
+    }
+}
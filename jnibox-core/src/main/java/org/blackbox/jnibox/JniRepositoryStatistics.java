@@ -0,0 +1,227 @@
+package org.blackbox.jnibox;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistics of the store and loading of the libraries of a repository: per library, the bytes
+ * extracted, the extraction and load times, the status transitions, the failures and the
+ * current footprint on disk, and the totals and the latency histograms of the repository. It is
+ * a listener of the repository, see AbstractJniRepository.enableStatistics, and it is registered
+ * as the MXBean
+ *
+ * org.blackbox.jnibox:type=JniRepository,name=${repositoryDirectory},id=${identity}
+ */
+public final class JniRepositoryStatistics implements JniRepositoryListener, JniRepositoryStatisticsMXBean {
+
+    private final String repositoryDirectory;
+    private final ObjectName objectName;
+    private final ConcurrentMap<JniLibraryId, Counters> libraries = new ConcurrentHashMap<>();
+    private final AtomicLong storedLibraries = new AtomicLong();
+    private final AtomicLong loadedLibraries = new AtomicLong();
+    private final AtomicLong bytesExtracted = new AtomicLong();
+    private final AtomicLong storeFailures = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private final LatencyHistogram extractionLatency = new LatencyHistogram();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    JniRepositoryStatistics(JniRepository jniRepository) throws JMException {
+        assert jniRepository != null;
+        this.repositoryDirectory = jniRepository.getRepositoryDirectory();
+        this.objectName = new ObjectName("org.blackbox.jnibox:type=JniRepository,name="
+                + ObjectName.quote(repositoryDirectory) + ",id=" + Integer.toHexString(System.identityHashCode(jniRepository)));
+    }
+
+    /**
+     * Returns the name of the MXBean of these statistics.
+     *
+     * @return The name of the MXBean.
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    }
+
+    void unregister() throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    @Override
+    public void stored(JniLibrary library, long bytes, long nanos) {
+        Counters counters = counters(library);
+        counters.bytesExtracted = bytes;
+        counters.extractionNanos = nanos;
+        storedLibraries.incrementAndGet();
+        bytesExtracted.addAndGet(bytes);
+        extractionLatency.record(nanos);
+    }
+
+    @Override
+    public void loaded(JniLibrary library, long nanos) {
+        counters(library).loadNanos = nanos;
+        loadedLibraries.incrementAndGet();
+        loadLatency.record(nanos);
+    }
+
+    @Override
+    public void storeFailed(JniLibrary library, Throwable failure) {
+        Counters counters = counters(library);
+        counters.storeFailures.incrementAndGet();
+        counters.lastFailure = String.valueOf(failure);
+        storeFailures.incrementAndGet();
+    }
+
+    @Override
+    public void loadFailed(JniLibrary library, Throwable failure) {
+        Counters counters = counters(library);
+        counters.loadFailures.incrementAndGet();
+        counters.lastFailure = String.valueOf(failure);
+        loadFailures.incrementAndGet();
+    }
+
+    @Override
+    public void evicted(JniLibrary library, long bytes) {
+        evictions.incrementAndGet();
+        evictedBytes.addAndGet(bytes);
+    }
+
+    @Override
+    public void statusChanged(JniLibrary library, JniLibrary.Status previous, JniLibrary.Status current) {
+        counters(library).statusTransitions.incrementAndGet();
+    }
+
+    private Counters counters(JniLibrary library) {
+        Counters counters = libraries.get(library.getLibraryId());
+        if (counters == null || counters.library != library) {
+            // a library stored again after the close of the repository is a new library
+            counters = libraries.compute(library.getLibraryId(),
+                    (libraryId, current) -> current == null || current.library != library ? new Counters(library) : current);
+        }
+        return counters;
+    }
+
+    @Override
+    public String getRepositoryDirectory() {
+        return repositoryDirectory;
+    }
+
+    @Override
+    public Map<String, JniLibraryStatistics> getLibraries() {
+        Map<String, JniLibraryStatistics> snapshot = new TreeMap<>();
+        for (Counters counters : libraries.values()) {
+            JniLibrary library = counters.library;
+            snapshot.put(library.getLibraryPackage() + '/' + library.getLibraryName(), counters.snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the statistics of the given library, or null if the library has not been stored
+     * or loaded yet.
+     *
+     * @param libraryId Identifier of the library.
+     * @return The statistics of the library.
+     */
+    public JniLibraryStatistics getLibrary(JniLibraryId libraryId) {
+        Counters counters = libraries.get(libraryId);
+        return counters == null ? null : counters.snapshot();
+    }
+
+    @Override
+    public long getStoredLibraries() {
+        return storedLibraries.get();
+    }
+
+    @Override
+    public long getLoadedLibraries() {
+        return loadedLibraries.get();
+    }
+
+    @Override
+    public long getBytesExtracted() {
+        return bytesExtracted.get();
+    }
+
+    @Override
+    public long getStoreFailures() {
+        return storeFailures.get();
+    }
+
+    @Override
+    public long getLoadFailures() {
+        return loadFailures.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public long getEvictedBytes() {
+        return evictedBytes.get();
+    }
+
+    @Override
+    public long getDiskFootprint() {
+        long footprint = 0L;
+        for (Counters counters : libraries.values()) {
+            footprint += diskFootprint(counters.library);
+        }
+        return footprint;
+    }
+
+    @Override
+    public LatencyHistogram getExtractionLatency() {
+        return extractionLatency;
+    }
+
+    @Override
+    public LatencyHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    private static long diskFootprint(JniLibrary library) {
+        String libraryPath = library.getLibraryPath();
+        return libraryPath == null ? 0L : new File(libraryPath).length();
+    }
+
+    private static final class Counters {
+
+        private final JniLibrary library;
+        private final AtomicLong statusTransitions = new AtomicLong();
+        private final AtomicLong storeFailures = new AtomicLong();
+        private final AtomicLong loadFailures = new AtomicLong();
+        private volatile long bytesExtracted;
+        private volatile long extractionNanos;
+        private volatile long loadNanos;
+        private volatile String lastFailure;
+
+        private Counters(JniLibrary library) {
+            this.library = library;
+        }
+
+        private JniLibraryStatistics snapshot() {
+            return new JniLibraryStatistics(library.getLibraryPackage(), library.getLibraryName(),
+                    library.getStatus().name(), library.getLibraryPath(), bytesExtracted, extractionNanos / 1000L,
+                    loadNanos / 1000L, statusTransitions.get(), storeFailures.get(), loadFailures.get(), lastFailure,
+                    diskFootprint(library));
+        }
+    }
+}
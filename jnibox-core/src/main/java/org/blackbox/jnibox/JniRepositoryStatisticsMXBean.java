@@ -0,0 +1,53 @@
+package org.blackbox.jnibox;
+
+import java.util.Map;
+
+/**
+ * Management interface of JniRepositoryStatistics.
+ */
+public interface JniRepositoryStatisticsMXBean {
+
+    String getRepositoryDirectory();
+
+    /**
+     * Returns the statistics of every library seen by the repository, by package and name.
+     *
+     * @return The statistics of every library.
+     */
+    Map<String, JniLibraryStatistics> getLibraries();
+
+    long getStoredLibraries();
+
+    long getLoadedLibraries();
+
+    long getBytesExtracted();
+
+    long getStoreFailures();
+
+    long getLoadFailures();
+
+    /**
+     * Returns the number of libraries evicted to respect the quota of the repository.
+     *
+     * @return The number of evicted libraries.
+     */
+    long getEvictions();
+
+    /**
+     * Returns the bytes of the files evicted to respect the quota of the repository.
+     *
+     * @return The bytes of the evicted files.
+     */
+    long getEvictedBytes();
+
+    /**
+     * Returns the current size of the stored files of the repository.
+     *
+     * @return The current size of the stored files.
+     */
+    long getDiskFootprint();
+
+    LatencyHistogram getExtractionLatency();
+
+    LatencyHistogram getLoadLatency();
+}
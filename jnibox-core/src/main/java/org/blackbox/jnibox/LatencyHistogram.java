@@ -0,0 +1,133 @@
+package org.blackbox.jnibox;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in microseconds. The bucket i counts the latencies lower
+ * than 2^i microseconds and not counted by the previous bucket, the last bucket counts the rest
+ * (more than 2^30 microseconds, about 18 minutes). Percentiles are the upper bound of the
+ * bucket where they fall, so they are accurate up to a factor of two.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    void record(long nanos) {
+        long micros = Math.max(0L, nanos / 1000L);
+        buckets.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // retry until the max is updated or another thread recorded a greater latency
+        }
+    }
+
+    private static int bucket(long micros) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * Returns the amount of recorded latencies.
+     *
+     * @return The amount of recorded latencies.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the recorded latencies in microseconds.
+     *
+     * @return The sum of the recorded latencies in microseconds.
+     */
+    public long getTotalMicros() {
+        return totalMicros.get();
+    }
+
+    /**
+     * Returns the greatest recorded latency in microseconds.
+     *
+     * @return The greatest recorded latency in microseconds.
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies in microseconds.
+     *
+     * @return The mean of the recorded latencies in microseconds, 0 if there is none.
+     */
+    public long getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0L : getTotalMicros() / count;
+    }
+
+    public long getP50Micros() {
+        return percentile(0.50);
+    }
+
+    public long getP90Micros() {
+        return percentile(0.90);
+    }
+
+    public long getP99Micros() {
+        return percentile(0.99);
+    }
+
+    /**
+     * Returns the count of every bucket, see getBucketBoundsMicros.
+     *
+     * @return The count of every bucket.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the exclusive upper bound of every bucket in microseconds.
+     *
+     * @return The upper bound of every bucket.
+     */
+    public long[] getBucketBoundsMicros() {
+        long[] bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bounds[i] = i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+        return bounds;
+    }
+
+    private long percentile(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0L;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(1L << i, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+}
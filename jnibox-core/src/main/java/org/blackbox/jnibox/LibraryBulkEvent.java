@@ -0,0 +1,33 @@
+package org.blackbox.jnibox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a bulk operation, storeAll or storeAndLoadAll, disabled by default. Its duration
+ * is the time until all the libraries are stored (and loaded) or failed.
+ */
+@Name("org.blackbox.jnibox.LibraryBulk")
+@Label("Native Library Bulk Operation")
+@Description("Many native libraries have been stored, or stored and loaded, in a jni repository")
+@Category("jnibox")
+@Enabled(false)
+@StackTrace(false)
+final class LibraryBulkEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Repository Directory")
+    String repositoryDirectory;
+
+    @Label("Libraries")
+    int libraries;
+
+    @Label("Failures")
+    int failures;
+}
@@ -0,0 +1,89 @@
+package org.blackbox.jnibox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The last file written, with cloning, of every library content of the JVM, see LibraryCloning.
+ */
+final class LibraryClones {
+
+    private static final ConcurrentMap<String, Clone> CLONES = new ConcurrentHashMap<>();
+
+    private LibraryClones() {
+    }
+
+    /**
+     * Writes the target from an existing file with the content of the key, if any is still there.
+     *
+     * @param contentKey Key of the content, see LibrarySource.getContentKey.
+     * @param target The library file, it is replaced.
+     * @param cloning HARD_LINK or CLONE.
+     * @return True if the target has been written, false if the content has to be copied from its source.
+     * @throws IOException If the existing target could not be replaced.
+     */
+    static boolean cloneTo(String contentKey, File target, LibraryCloning cloning) throws IOException {
+        assert contentKey != null;
+        assert target != null;
+        assert cloning != LibraryCloning.COPY;
+        Clone clone = CLONES.get(contentKey);
+        if (clone == null) {
+            return false;
+        }
+        if (clone.file.equals(target) && target.length() == clone.length) {
+            return true;
+        }
+        if (!clone.file.isFile() || clone.file.length() != clone.length) {
+            CLONES.remove(contentKey, clone);
+            return false;
+        }
+        // never write through an existing file, it may be a link of a loaded library
+        Files.deleteIfExists(target.toPath());
+        try {
+            if (cloning == LibraryCloning.HARD_LINK) {
+                try {
+                    Files.createLink(target.toPath(), clone.file.toPath());
+                    register(contentKey, target);
+                    return true;
+                } catch (IOException | UnsupportedOperationException e) {
+                    // another file system, it is cloned
+                }
+            }
+            if (LibrarySource.of(clone.file).copyTo(target) == clone.length) {
+                register(contentKey, target);
+                return true;
+            }
+        } catch (IOException e) {
+            // deleted meanwhile, it is copied from its source
+        }
+        CLONES.remove(contentKey, clone);
+        Files.deleteIfExists(target.toPath());
+        return false;
+    }
+
+    /**
+     * Registers a file written with the content of the key.
+     *
+     * @param contentKey Key of the content, see LibrarySource.getContentKey.
+     * @param file The library file.
+     */
+    static void register(String contentKey, File file) {
+        assert contentKey != null;
+        assert file != null;
+        CLONES.put(contentKey, new Clone(file, file.length()));
+    }
+
+    private static final class Clone {
+
+        private final File file;
+        private final long length;
+
+        private Clone(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.blackbox.jnibox;
+
+/**
+ * How a repository writes a library whose content has been already written by another
+ * repository with cloning of the JVM (see AbstractJniRepository.setCloning). The content is
+ * recognized without reading it: by the hash of the jnibox index, or by the resource it comes
+ * from.
+ */
+public enum LibraryCloning {
+
+    /**
+     * The library is always copied from its source. The default.
+     */
+    COPY,
+
+    /**
+     * The library is copied from the existing file by the kernel, without decompressing or
+     * reading its source, and file systems with reflinks (btrfs, XFS) may share its blocks. Every
+     * copy has its own inode, so the dynamic linker loads each one as a different library.
+     */
+    CLONE,
+
+    /**
+     * The library is a hard link of the existing file, so it only costs a metadata operation,
+     * and it is cloned when the existing file is in another file system. The System.load of
+     * every path succeeds, but the dynamic linker recognizes the same inode and shares one
+     * instance of the library, and its native static state, between the class loaders.
+     */
+    HARD_LINK
+}
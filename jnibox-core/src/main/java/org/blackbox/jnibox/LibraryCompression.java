@@ -0,0 +1,129 @@
+package org.blackbox.jnibox;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats of the library resources. A library libfoo.so may be packed as
+ * libfoo.so.gz, libfoo.so.zst or libfoo.so.xz and it is decompressed while it is stored.
+ * Gzip is always available, zstd and xz are available when their pure java codecs
+ * (io.airlift:aircompressor and org.tukaani:xz) are in the classpath.
+ */
+enum LibraryCompression {
+
+    GZIP(".gz", null) {
+        @Override
+        InputStream decompress(InputStream compressed) throws IOException {
+            return new GZIPInputStream(compressed, BUFFER_SIZE);
+        }
+    },
+    ZSTD(".zst", "io.airlift.compress.zstd.ZstdInputStream") {
+        @Override
+        InputStream decompress(InputStream compressed) throws IOException {
+            return ZstdCodec.decompress(new BufferedInputStream(compressed, BUFFER_SIZE));
+        }
+    },
+    XZ(".xz", "org.tukaani.xz.XZInputStream") {
+        @Override
+        InputStream decompress(InputStream compressed) throws IOException {
+            return XzCodec.decompress(new BufferedInputStream(compressed, BUFFER_SIZE));
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<LibraryCompression> AVAILABLE = findAvailable();
+
+    private final String extension;
+    private final String codecClass;
+
+    LibraryCompression(String extension, String codecClass) {
+        this.extension = extension;
+        this.codecClass = codecClass;
+    }
+
+    /**
+     * Returns the extension of the compressed resources, with the dot.
+     *
+     * @return The extension of the compressed resources.
+     */
+    String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the decompressed stream of the given compressed stream.
+     *
+     * @param compressed The compressed stream.
+     * @return The decompressed stream.
+     * @throws IOException If the stream is not in this format.
+     */
+    abstract InputStream decompress(InputStream compressed) throws IOException;
+
+    /**
+     * Returns the formats whose codec is in the classpath, in order of preference.
+     *
+     * @return The available formats.
+     */
+    static List<LibraryCompression> available() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Returns the available format of the given resource name, or null if it is not compressed.
+     *
+     * @param resourceName The name of a resource.
+     * @return The format of the resource.
+     */
+    static LibraryCompression of(String resourceName) {
+        for (LibraryCompression compression : AVAILABLE) {
+            if (resourceName.endsWith(compression.extension) && resourceName.length() > compression.extension.length()) {
+                return compression;
+            }
+        }
+        return null;
+    }
+
+    private static List<LibraryCompression> findAvailable() {
+        List<LibraryCompression> available = new ArrayList<>();
+        for (LibraryCompression compression : values()) {
+            if (compression.codecClass == null) {
+                available.add(compression);
+                continue;
+            }
+            try {
+                Class.forName(compression.codecClass, false, LibraryCompression.class.getClassLoader());
+                available.add(compression);
+            } catch (ClassNotFoundException | LinkageError e) {
+                // the optional codec is not in the classpath
+            }
+        }
+        return Collections.unmodifiableList(available);
+    }
+
+    /**
+     * The optional codecs are only referenced from their own classes, so they are not loaded
+     * unless they are used.
+     */
+    private static final class ZstdCodec {
+
+        private static InputStream decompress(InputStream compressed) {
+            return new ZstdInputStream(compressed);
+        }
+    }
+
+    private static final class XzCodec {
+
+        private static InputStream decompress(InputStream compressed) throws IOException {
+            return new XZInputStream(compressed);
+        }
+    }
+}
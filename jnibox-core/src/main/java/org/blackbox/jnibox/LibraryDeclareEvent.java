@@ -0,0 +1,29 @@
+package org.blackbox.jnibox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of the declaration of a library, disabled by default.
+ */
+@Name("org.blackbox.jnibox.LibraryDeclare")
+@Label("Native Library Declare")
+@Description("A native library has been declared in a jni repository")
+@Category("jnibox")
+@Enabled(false)
+@StackTrace(false)
+final class LibraryDeclareEvent extends jdk.jfr.Event {
+
+    @Label("Library Package")
+    String libraryPackage;
+
+    @Label("Library Name")
+    String libraryName;
+
+    @Label("Repository Directory")
+    String repositoryDirectory;
+}
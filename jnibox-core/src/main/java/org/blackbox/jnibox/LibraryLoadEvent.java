@@ -0,0 +1,33 @@
+package org.blackbox.jnibox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of the loading of a library, disabled by default. Its duration is the time of the
+ * JniLibraryLoader, typically System.load.
+ */
+@Name("org.blackbox.jnibox.LibraryLoad")
+@Label("Native Library Load")
+@Description("A native library of a jni repository has been loaded")
+@Category("jnibox")
+@Enabled(false)
+@StackTrace(false)
+final class LibraryLoadEvent extends jdk.jfr.Event {
+
+    @Label("Library Package")
+    String libraryPackage;
+
+    @Label("Library Name")
+    String libraryName;
+
+    @Label("Library Path")
+    String libraryPath;
+
+    @Label("Failure")
+    String failure;
+}
@@ -0,0 +1,171 @@
+package org.blackbox.jnibox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quota of the stored files of a repository, in bytes and in entries. Every stored library is
+ * counted, but only the libraries that are stored and not loaded can be evicted, the least
+ * recently used first. The lock guards the bookkeeping only, the files are deleted by the
+ * repository out of it (see AbstractJniRepository.evict). It is not a monitor, so the virtual
+ * threads that wait for it do not pin their carrier.
+ */
+final class LibraryQuota {
+
+    private final long maxBytes;
+    private final int maxEntries;
+
+    private final Lock lock = new ReentrantLock();
+    private final Map<JniLibrary, Stored> stored = new HashMap<>();
+    private final LinkedHashMap<JniLibrary, Stored> evictable = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    LibraryQuota(long maxBytes, int maxEntries) {
+        assert maxBytes > 0;
+        assert maxEntries > 0;
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Counts a stored library, it can be evicted until it is loaded.
+     *
+     * @param library The stored library.
+     * @param libraryBytes Size of its file.
+     * @param source Source of the library, to store it again once evicted.
+     */
+    void stored(JniLibrary library, long libraryBytes, Callable<LibrarySource> source) {
+        lock.lock();
+        try {
+            Stored entry = new Stored(library, libraryBytes, source);
+            Stored previous = stored.put(library, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += libraryBytes;
+            evictable.put(library, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a library as recently used.
+     *
+     * @param library The library.
+     */
+    void used(JniLibrary library) {
+        lock.lock();
+        try {
+            evictable.get(library);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void loaded(JniLibrary library) {
+        lock.lock();
+        try {
+            evictable.remove(library);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void loadFailed(JniLibrary library) {
+        lock.lock();
+        try {
+            Stored entry = stored.get(library);
+            if (entry != null) {
+                evictable.put(library, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the least recently used libraries to evict until the stored files fit in the quota,
+     * they are not counted anymore. A library that can not be evicted at last is given back.
+     *
+     * @param kept The library that has just been stored, it is not evicted.
+     * @return The libraries to evict.
+     */
+    List<Stored> overflow(JniLibrary kept) {
+        lock.lock();
+        try {
+            List<Stored> overflow = new ArrayList<>();
+            Iterator<Stored> candidates = evictable.values().iterator();
+            while ((bytes > maxBytes || stored.size() > maxEntries) && candidates.hasNext()) {
+                Stored candidate = candidates.next();
+                if (candidate.library != kept) {
+                    candidates.remove();
+                    stored.remove(candidate.library);
+                    bytes -= candidate.bytes;
+                    overflow.add(candidate);
+                }
+            }
+            return overflow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts again a library that could not be evicted, because it is being loaded.
+     *
+     * @param entry The library.
+     */
+    void giveBack(Stored entry) {
+        lock.lock();
+        try {
+            if (stored.putIfAbsent(entry.library, entry) == null) {
+                bytes += entry.bytes;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            stored.clear();
+            evictable.clear();
+            bytes = 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A stored library.
+     */
+    static final class Stored {
+
+        final JniLibrary library;
+        final long bytes;
+        final Callable<LibrarySource> source;
+
+        private Stored(JniLibrary library, long bytes, Callable<LibrarySource> source) {
+            this.library = library;
+            this.bytes = bytes;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Content of a library to store. Besides being a byte source, it knows how to copy itself to a
+ * file channel with the cheapest method available:
+ *
+ *  - Files and STORED entries of jars (even nested jars of fat jars) are transferred from the
+ *  file channel of the source to the file channel of the target, so the bytes are copied by the
+ *  kernel and never cross the heap.
+ *
+ *  - Any other resource (compressed entries, remote urls...) is read from its stream.
+ *
+ *  - Compressed libraries (libfoo.so.gz...) are decompressed from their stream while they are
+ *  written, in a single pass.
+ */
+abstract class LibrarySource extends ByteSource {
+
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private volatile JniLibraryManifest.Entry manifestEntry;
+
+    /**
+     * Returns the source of a library that is in the file system.
+     *
+     * @param file The library file.
+     * @return The source of the library.
+     */
+    static LibrarySource of(File file) {
+        assert file != null;
+        return new RegionLibrarySource(file, 0L, -1L);
+    }
+
+    /**
+     * Returns the source of a library that is in the given url, typically a classpath resource.
+     *
+     * @param url The library url.
+     * @return The source of the library.
+     */
+    static LibrarySource of(URL url) {
+        assert url != null;
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return of(new File(url.toURI()));
+            }
+            if ("jar".equals(url.getProtocol())) {
+                LibrarySource source = storedJarEntry(url);
+                if (source != null) {
+                    return source;
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            // the stream of the url is always a valid fallback
+        }
+        return new UrlLibrarySource(url);
+    }
+
+    /**
+     * Returns the source of a compressed library that is in the given url, its content is the
+     * decompressed content of the url.
+     *
+     * @param url The compressed library url.
+     * @param compression The format of the compressed library.
+     * @return The source of the library.
+     */
+    static LibrarySource compressed(URL url, LibraryCompression compression) {
+        assert url != null;
+        assert compression != null;
+        return new UrlLibrarySource(url, compression);
+    }
+
+    /**
+     * Attaches the entry of the library in the jnibox index, so its size and hash are known
+     * without reading the source.
+     *
+     * @param manifestEntry The entry of the library in the index.
+     * @return This source.
+     */
+    LibrarySource withManifestEntry(JniLibraryManifest.Entry manifestEntry) {
+        this.manifestEntry = manifestEntry;
+        return this;
+    }
+
+    /**
+     * Returns the entry of the library in the jnibox index, or null if it is not indexed.
+     *
+     * @return The entry of the library in the index.
+     */
+    JniLibraryManifest.Entry getManifestEntry() {
+        return manifestEntry;
+    }
+
+    /**
+     * Returns a key of the content of the source that is known without reading it: the hash and
+     * the size of the jnibox index, or the resource that the content comes from.
+     *
+     * @return The key of the content, or null if it is not known.
+     */
+    String getContentKey() {
+        JniLibraryManifest.Entry manifestEntry = this.manifestEntry;
+        if (manifestEntry != null) {
+            return manifestEntry.getSha256() + '-' + manifestEntry.getSize();
+        }
+        return getResourceKey();
+    }
+
+    /**
+     * Returns the resource that the content of the source comes from, or null if its content
+     * may change.
+     *
+     * @return The key of the resource.
+     */
+    abstract String getResourceKey();
+
+    /**
+     * Returns the size, the modification time and the file key (the inode) of a regular file, so
+     * a file rewritten or replaced with a preserved or coarse modification time (cp -p, rsync,
+     * reproducible builds) has another key.
+     *
+     * @param file The file of the content.
+     * @return The freshness of the file, or null if it is not a readable regular file.
+     */
+    private static String freshness(File file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            Object fileKey = attributes.fileKey();
+            return "#" + attributes.size() + '@' + attributes.lastModifiedTime().toMillis()
+                    + (fileKey == null ? "" : "~" + fileKey);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the type of the source for the JFR events: file, stored jar entry, the compression
+     * of a compressed resource or the protocol of any other url.
+     *
+     * @return The type of the source.
+     */
+    abstract String getType();
+
+    /**
+     * Copies the content of the source to the given file, that is created or truncated.
+     *
+     * @param file The target file.
+     * @return The amount of bytes copied.
+     * @throws IOException If the content could not be copied.
+     */
+    long copyTo(File file) throws IOException {
+        try (FileChannel target = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return copyTo(target);
+        }
+    }
+
+    /**
+     * Copies the content of the source to the given channel from its position zero.
+     *
+     * @param target The target channel.
+     * @return The amount of bytes copied.
+     * @throws IOException If the content could not be copied.
+     */
+    abstract long copyTo(FileChannel target) throws IOException;
+
+    /**
+     * Returns the source of a jar url (jar:file:/app.jar!/org/company/lib.so) when the entry, and
+     * all the nested jars that contain it, are STORED, or null otherwise. Nested jars follow the
+     * classic fat jar format (jar:file:/app.jar!/BOOT-INF/lib/inner.jar!/org/company/lib.so) or
+     * the nested one (jar:nested:/app.jar/!BOOT-INF/lib/inner.jar!/org/company/lib.so).
+     */
+    private static LibrarySource storedJarEntry(URL url) throws IOException, URISyntaxException {
+        String[] segments = url.toString().substring("jar:".length()).split("!/");
+        if (segments.length < 2) {
+            return null;
+        }
+        List<String> entryNames = new ArrayList<>(segments.length);
+        File file;
+        String root = segments[0];
+        if (root.startsWith("nested:")) {
+            int separator = root.indexOf("/!");
+            if (separator < 0) {
+                return null;
+            }
+            file = new File(decode(root.substring("nested:".length(), separator)));
+            entryNames.add(decode(root.substring(separator + 2)));
+        } else {
+            file = new File(new URI(root));
+        }
+        for (int i = 1; i < segments.length; i++) {
+            entryNames.add(decode(segments[i]));
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long offset = 0L;
+            long length = channel.size();
+            for (String entryName : entryNames) {
+                long[] region = ZipEntries.findStoredEntry(channel, offset, length, entryName);
+                if (region == null) {
+                    return null;
+                }
+                offset = region[0];
+                length = region[1];
+            }
+            return new RegionLibrarySource(file, offset, length);
+        }
+    }
+
+    /**
+     * Returns the local file that holds the content of a file or jar url (the outer jar of
+     * nested jars), or null if the url is not backed by a local file.
+     */
+    private static File backingFile(URL url) {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI());
+            }
+            if (!"jar".equals(url.getProtocol())) {
+                return null;
+            }
+            String root = url.toString().substring("jar:".length()).split("!/")[0];
+            if (root.startsWith("nested:")) {
+                int separator = root.indexOf("/!");
+                return separator < 0 ? null : new File(decode(root.substring("nested:".length(), separator)));
+            }
+            return root.startsWith("file:") ? new File(new URI(root)) : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String decode(String path) throws URISyntaxException {
+        return new URI(path).getPath();
+    }
+
+    /**
+     * A region of a file, the whole file when the length is unknown.
+     */
+    private static final class RegionLibrarySource extends LibrarySource {
+
+        private final File file;
+        private final long offset;
+        private final long length;
+
+        private RegionLibrarySource(File file, long offset, long length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            channel.position(offset);
+            return ByteStreams.limit(Channels.newInputStream(channel), length < 0 ? Long.MAX_VALUE : length);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return length < 0 ? file.length() : length;
+        }
+
+        @Override
+        long copyTo(FileChannel target) throws IOException {
+            try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = length < 0 ? source.size() : length;
+                long copied = 0L;
+                while (copied < size) {
+                    long transferred = source.transferTo(offset + copied, Math.min(TRANSFER_CHUNK, size - copied), target);
+                    if (transferred <= 0) {
+                        throw new EOFException(file + " ended after " + copied + " of " + size + " bytes.");
+                    }
+                    copied += transferred;
+                }
+                return copied;
+            }
+        }
+
+        @Override
+        String getType() {
+            return length < 0 ? "file" : "stored jar entry";
+        }
+
+        @Override
+        String getResourceKey() {
+            String freshness = freshness(file);
+            return freshness == null ? null : file.getAbsolutePath() + '@' + offset + '+' + length + freshness;
+        }
+
+        @Override
+        public String toString() {
+            return "LibrarySource(" + file + '@' + offset + ')';
+        }
+    }
+
+    /**
+     * Any url, it is read from its stream, decompressed if the url is compressed.
+     */
+    private static final class UrlLibrarySource extends LibrarySource {
+
+        private final URL url;
+        private final LibraryCompression compression;
+
+        private UrlLibrarySource(URL url) {
+            this(url, null);
+        }
+
+        private UrlLibrarySource(URL url, LibraryCompression compression) {
+            this.url = url;
+            this.compression = compression;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            InputStream stream = url.openStream();
+            if (compression == null) {
+                return stream;
+            }
+            try {
+                return compression.decompress(stream);
+            } catch (IOException | RuntimeException e) {
+                stream.close();
+                throw e;
+            }
+        }
+
+        @Override
+        long copyTo(FileChannel target) throws IOException {
+            try (ReadableByteChannel source = Channels.newChannel(openStream())) {
+                long copied = 0L;
+                long transferred;
+                while ((transferred = target.transferFrom(source, copied, TRANSFER_CHUNK)) > 0) {
+                    copied += transferred;
+                }
+                return copied;
+            }
+        }
+
+        @Override
+        String getType() {
+            return compression == null ? url.getProtocol() : compression.name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * The url changes nothing when the file behind it is rewritten (a redeployed jar or
+         * compressed library), so the freshness of that file is part of the key. Urls that are
+         * not backed by a local file have no key.
+         */
+        @Override
+        String getResourceKey() {
+            File file = backingFile(url);
+            String freshness = file == null ? null : freshness(file);
+            return freshness == null ? null : (compression == null ? url.toString() : url + "!" + compression) + freshness;
+        }
+
+        @Override
+        public String toString() {
+            return "LibrarySource(" + url + ')';
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.blackbox.jnibox;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of the store of a library, disabled by default. Its duration is the time of the
+ * store, from finding the source of the library to the stored file.
+ */
+@Name("org.blackbox.jnibox.LibraryStore")
+@Label("Native Library Store")
+@Description("A native library has been stored in a jni repository")
+@Category("jnibox")
+@Enabled(false)
+@StackTrace(false)
+final class LibraryStoreEvent extends jdk.jfr.Event {
+
+    @Label("Library Package")
+    String libraryPackage;
+
+    @Label("Library Name")
+    String libraryName;
+
+    @Label("Library Path")
+    String libraryPath;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Source Type")
+    @Description("file, stored jar entry, compressed resource (gzip, zstd, xz), url protocol, or none when the repository does not read the source")
+    String sourceType;
+
+    @Label("Failure")
+    String failure;
+}
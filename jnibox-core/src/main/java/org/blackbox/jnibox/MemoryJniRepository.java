@@ -0,0 +1,167 @@
+package org.blackbox.jnibox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Jni repository that extracts the libraries in memory, in a directory of a memory file system
+ * (tmpfs or ramfs) of Linux, so the store never writes to a block device. The directory has the
+ * name of a TempDirJniRepository directory and it is created in the first of these directories
+ * that is in a memory file system mounted without noexec (System.load maps the library as
+ * executable):
+ *
+ * /dev/shm, ${XDG_RUNTIME_DIR}, /run/shm, /tmp, ${java.io.tmpdir}
+ *
+ * The memory is released when the repository is closed, or when it becomes unreachable. The
+ * directories of the JVMs that died without closing their repositories are reaped like the ones
+ * of TempDirJniRepository: by reapOrphanedDirectories, or in the background if the system
+ * property jnibox.reapOrphanedDirectories is true.
+ *
+ * Linux memfd_create would avoid the directory, but it is not reachable from Java, and its
+ * /proc/self/fd paths would have to live as long as the loaded libraries anyway.
+ */
+public final class MemoryJniRepository extends AbstractJniRepository {
+
+    private static final String MOUNTS = "/proc/self/mounts";
+
+    private static final List<String> MEMORY_FILE_SYSTEMS = Arrays.asList("tmpfs", "ramfs");
+
+    private static final AtomicBoolean REAPED = new AtomicBoolean(false);
+
+    public MemoryJniRepository(JniLibraryLoader jniLibraryLoader) {
+        super(createRepositoryDir(), jniLibraryLoader);
+    }
+
+    public MemoryJniRepository() {
+        super(createRepositoryDir());
+    }
+
+    /**
+     * Returns true if a memory file system where the libraries can be loaded from is mounted, so
+     * this type of repository can be created.
+     *
+     * @return True if this type of repository is supported in this host.
+     */
+    public static boolean isSupported() {
+        return findMemoryDirectory() != null;
+    }
+
+    private static File createRepositoryDir() {
+        File memoryDirectory = findMemoryDirectory();
+        if (memoryDirectory == null) {
+            throw new IllegalStateException("No memory file system (tmpfs) mounted without noexec was found in " + MOUNTS);
+        }
+        File repositoryDirectory = TempDirJniRepository.createRepositoryDir(memoryDirectory);
+        if (Boolean.getBoolean(TempDirJniRepository.REAP_PROPERTY) && REAPED.compareAndSet(false, true)) {
+            defaultExecutor().execute(() -> TempDirJniRepository.reapOrphanedDirectories(memoryDirectory));
+        }
+        return repositoryDirectory;
+    }
+
+    /**
+     * Deletes the repository directories of this type whose owner is not alive anymore, see
+     * TempDirJniRepository.reapOrphanedDirectories().
+     *
+     * @return The deleted directories.
+     */
+    public static List<File> reapOrphanedDirectories() {
+        File memoryDirectory = findMemoryDirectory();
+        return memoryDirectory == null
+                ? Collections.<File>emptyList()
+                : TempDirJniRepository.reapOrphanedDirectories(memoryDirectory);
+    }
+
+    @Override
+    protected void cleanRepositoryDirectory() throws IOException {
+        try {
+            super.cleanRepositoryDirectory();
+        } finally {
+            TempDirJniRepository.releaseOwner(new File(getRepositoryDirectory()));
+        }
+    }
+
+    @Override
+    protected Runnable cleanupAction() {
+        return TempDirJniRepository.ownerCleanup(super.cleanupAction(), new File(getRepositoryDirectory()));
+    }
+
+    private static File findMemoryDirectory() {
+        List<String> mounts;
+        try {
+            mounts = Files.readAllLines(Paths.get(MOUNTS), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // not Linux
+            return null;
+        }
+        List<String> candidates = new ArrayList<>();
+        for (String candidate : Arrays.asList("/dev/shm", System.getenv("XDG_RUNTIME_DIR"), "/run/shm",
+                "/tmp", System.getProperty("java.io.tmpdir"))) {
+            try {
+                if (candidate != null) {
+                    // /dev/shm is a link to /run/shm in some distributions
+                    candidates.add(new File(candidate).getCanonicalPath());
+                }
+            } catch (IOException e) {
+                // not a candidate
+            }
+        }
+        for (String candidate : findMemoryDirectories(mounts, candidates)) {
+            File directory = new File(candidate);
+            if (directory.isDirectory() && directory.canWrite()) {
+                return directory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the candidates that are in a memory file system mounted without noexec, in order.
+     *
+     * @param mounts The lines of /proc/self/mounts.
+     * @param candidates The candidate directories, absolute.
+     * @return The candidates in a memory file system.
+     */
+    static List<String> findMemoryDirectories(List<String> mounts, List<String> candidates) {
+        List<String> memoryDirectories = new ArrayList<>();
+        for (String candidate : candidates) {
+            String[] mount = findMount(mounts, candidate);
+            if (mount != null && MEMORY_FILE_SYSTEMS.contains(mount[2])
+                    && !Arrays.asList(mount[3].split(",")).contains("noexec")) {
+                memoryDirectories.add(candidate);
+            }
+        }
+        return memoryDirectories;
+    }
+
+    /**
+     * The mount of the path is the one with the longest mount point that contains it, the last
+     * one of the mounts if it is mounted many times.
+     */
+    private static String[] findMount(List<String> mounts, String path) {
+        String[] found = null;
+        int foundLength = -1;
+        for (String line : mounts) {
+            String[] mount = line.split(" ");
+            if (mount.length < 4) {
+                continue;
+            }
+            // spaces, tabs and backslashes are escaped in octal
+            String mountPoint = mount[1].replace("\\040", " ").replace("\\011", "\t").replace("\\134", "\\");
+            boolean contains = path.equals(mountPoint) || "/".equals(mountPoint)
+                    || path.startsWith(mountPoint.endsWith("/") ? mountPoint : mountPoint + '/');
+            if (contains && mountPoint.length() >= foundLength) {
+                found = mount;
+                foundLength = mountPoint.length();
+            }
+        }
+        return found;
+    }
+}
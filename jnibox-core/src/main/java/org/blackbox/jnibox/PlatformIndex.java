@@ -0,0 +1,105 @@
+package org.blackbox.jnibox;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Best variant of every library of a package for a platform, see JniPlatform. It is built once
+ * with one scan of the platform directories of the package in the classpath, so the lookups
+ * that follow do not probe the classpath.
+ */
+final class PlatformIndex {
+
+    private final Map<String, URL> libraries;
+
+    private PlatformIndex(Map<String, URL> libraries) {
+        this.libraries = Collections.unmodifiableMap(libraries);
+    }
+
+    /**
+     * Scans the platform directories of the package and keeps, for every library, the variant
+     * of the best matching directory. A plain variant is preferred to a compressed one of the
+     * same directory.
+     *
+     * @param classLoader Class loader of the resources.
+     * @param libraryPackage Package of the libraries.
+     * @param platform Platform of the libraries.
+     * @return The index of the package.
+     * @throws IOException If the classpath could not be scanned.
+     */
+    static PlatformIndex build(ClassLoader classLoader, String libraryPackage, JniPlatform platform) throws IOException {
+        assert libraryPackage != null;
+        assert platform != null;
+        List<String> directories = platform.getDirectories();
+        Resource[] resources = new PathMatchingResourcePatternResolver(classLoader).getResources(
+                PathMatchingResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + libraryPackage.replace('.', '/') + "/*/*");
+
+        Map<String, URL> libraries = new HashMap<>();
+        Map<String, Integer> ranks = new HashMap<>();
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null || !resource.isReadable()) {
+                continue;
+            }
+            URL url = resource.getURL();
+            String path = url.getPath();
+            if (path.endsWith("/")) {
+                // directory entry of a jar
+                continue;
+            }
+            int nameStart = path.lastIndexOf('/');
+            int directoryStart = nameStart > 0 ? path.lastIndexOf('/', nameStart - 1) : -1;
+            if (directoryStart < 0) {
+                continue;
+            }
+            int directoryRank = directories.indexOf(path.substring(directoryStart + 1, nameStart));
+            if (directoryRank < 0) {
+                continue;
+            }
+            LibraryCompression compression = LibraryCompression.of(filename);
+            String libraryName = compression == null
+                    ? filename
+                    : filename.substring(0, filename.length() - compression.getExtension().length());
+            int rank = directoryRank * 2 + (compression == null ? 0 : 1);
+            Integer bestRank = ranks.get(libraryName);
+            if (bestRank == null || rank < bestRank) {
+                ranks.put(libraryName, rank);
+                libraries.put(libraryName, url);
+            }
+        }
+        return new PlatformIndex(libraries);
+    }
+
+    /**
+     * Returns the source of the best variant of the library, or null if the library has no
+     * variant for the platform.
+     *
+     * @param libraryName Name of the library.
+     * @return The source of the library.
+     */
+    LibrarySource source(String libraryName) {
+        URL url = libraries.get(libraryName);
+        if (url == null) {
+            return null;
+        }
+        LibraryCompression compression = LibraryCompression.of(url.getPath());
+        return compression == null ? LibrarySource.of(url) : LibrarySource.compressed(url, compression);
+    }
+
+    /**
+     * Returns the names of the libraries that have a variant for the platform.
+     *
+     * @return The names of the libraries.
+     */
+    Set<String> getLibraryNames() {
+        return libraries.keySet();
+    }
+}
@@ -0,0 +1,115 @@
+package org.blackbox.jnibox;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Jni repository over a directory where the libraries have been extracted beforehand, typically
+ * by jnibox-cli in a read-only layer of a container image. The directory has the layout of a
+ * ConfigurableJniRepository and the jnibox index of its libraries:
+ *
+ * ${repositoryDirectory}/${libraryPackagePath}/${libraryName}
+ * ${repositoryDirectory}/META-INF/jnibox/index
+ *
+ * Storing a library only verifies that its file exists, and that its size is the size of the
+ * index when it is indexed, and records its path: no byte is read or written and the classpath
+ * is not looked up. Closing the repository forgets its libraries and deletes nothing.
+ */
+public class ReadOnlyJniRepository extends AbstractJniRepository {
+
+    private final JniLibraryManifest manifest;
+
+    public ReadOnlyJniRepository(File repositoryDirectory, JniLibraryLoader jniLibraryLoader) {
+        super(repositoryDirectory, jniLibraryLoader);
+        this.manifest = readManifest(repositoryDirectory);
+    }
+
+    public ReadOnlyJniRepository(File repositoryDirectory) {
+        super(repositoryDirectory);
+        this.manifest = readManifest(repositoryDirectory);
+    }
+
+    private static JniLibraryManifest readManifest(File repositoryDirectory) {
+        File manifestFile = new File(repositoryDirectory, JniLibraryManifest.LOCATION);
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(manifestFile.toPath())) {
+            return JniLibraryManifest.read(stream);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read the jnibox index " + manifestFile, e);
+        }
+    }
+
+    @Override
+    File storeLibrary(Callable<LibrarySource> source, String libraryPackage, String libraryName) throws IOException {
+        return verifiedLibraryFile(libraryPackage, libraryName);
+    }
+
+    @Override
+    protected File storeLibraryFile(LibrarySource source, String libraryPackage, String libraryName) throws IOException {
+        return verifiedLibraryFile(libraryPackage, libraryName);
+    }
+
+    /**
+     * The libraries of a package are the indexed ones, or the files of its directory if there is
+     * no index.
+     */
+    @Override
+    List<JniLibraryId> findLibraries(String libraryPackage, ClassLoader classLoader) {
+        Preconditions.checkNotNull(libraryPackage);
+        List<JniLibraryId> libraryIds = new ArrayList<>();
+        if (manifest != null) {
+            for (String libraryName : manifest.getLibraryNames(libraryPackage, null)) {
+                libraryIds.add(new JniLibraryId(libraryPackage, libraryName));
+            }
+        } else {
+            File[] files = getLibraryParentDirectory(libraryPackage).listFiles(File::isFile);
+            if (files != null) {
+                for (File file : files) {
+                    libraryIds.add(new JniLibraryId(libraryPackage, file.getName()));
+                }
+            }
+        }
+        return libraryIds;
+    }
+
+    private File verifiedLibraryFile(String libraryPackage, String libraryName) throws IOException {
+        File libraryFile = new File(getLibraryParentDirectory(libraryPackage), libraryName);
+        if (!libraryFile.isFile()) {
+            throw new FileNotFoundException("Library " + libraryFile + " has not been extracted.");
+        }
+        JniLibraryManifest.Entry manifestEntry = manifest == null ? null : manifest.find(libraryPackage, libraryName, null);
+        if (manifestEntry != null && libraryFile.length() != manifestEntry.getSize()) {
+            throw new IOException("Library " + libraryFile + " has " + libraryFile.length()
+                    + " bytes but it was extracted with " + manifestEntry.getSize() + " bytes.");
+        }
+        return libraryFile;
+    }
+
+    /**
+     * The directory is never deleted.
+     */
+    @Override
+    protected void cleanRepositoryDirectory() throws IOException {
+        // nothing to clean, the directory is read only
+    }
+
+    @Override
+    protected Runnable cleanupAction() {
+        return null;
+    }
+
+    @Override
+    protected void evictLibraryFile(File libraryFile) {
+        // nothing to delete, the directory is read only
+    }
+}
@@ -0,0 +1,375 @@
+package org.blackbox.jnibox;
+
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.Striped;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cached repository whose directory is shared by all the JVMs of the host. It has the layout of
+ * CachedJniRepository, so every library is written once in the host and all the processes map
+ * the same file, sharing its pages in the page cache:
+ *
+ * ${sharedDirectory}/${libraryPackagePath}/${sha256}-${size}/${libraryName}
+ *
+ * The write of an entry is guarded by a FileChannel lock on ${entry}/.lock, so the processes do
+ * not write the same entry at the same time, and the files are still written in a temporary
+ * file and atomically renamed.
+ *
+ * Every repository holds a lease, a locked file in ${sharedDirectory}/.leases, for as long as it
+ * is open, and marks the entries that it uses with a reference ${entry}/.refs/${lease}. When the
+ * repository is closed it removes its references, and the library files of an entry are deleted
+ * once no live lease references it. The lease of a crashed process is released by the operating
+ * system, so its references are found dead by sweep. The entry directory and its lock file are
+ * never deleted, so a process waiting for the lock never writes in a removed directory.
+ */
+public class SharedJniRepository extends CachedJniRepository {
+
+    private static final String LOCK_FILE = ".lock";
+    private static final String REFERENCES_DIRECTORY = ".refs";
+    private static final String LEASES_DIRECTORY = ".leases";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * The file locks are held by the JVM, the repositories of the same JVM exclude each other
+     * with these locks first.
+     */
+    private static final Striped<Lock> ENTRY_LOCKS = Striped.lock(64);
+
+    /**
+     * Leases of the repositories of this JVM. Their files are never opened by the sweep, since
+     * closing any channel of a file may release all the locks of the JVM on that file.
+     */
+    private static final Set<String> LOCAL_LEASES = ConcurrentHashMap.newKeySet();
+
+    private final File sharedDirectory;
+
+    private final References references;
+
+    public SharedJniRepository(File sharedDirectory, JniLibraryLoader jniLibraryLoader) {
+        super(sharedDirectory, jniLibraryLoader);
+        this.sharedDirectory = sharedDirectory;
+        this.references = new References(sharedDirectory);
+    }
+
+    public SharedJniRepository(File sharedDirectory) {
+        super(sharedDirectory);
+        this.sharedDirectory = sharedDirectory;
+        this.references = new References(sharedDirectory);
+    }
+
+    /**
+     * Creates a shared repository in ${System.getProperty("java.io.tmpdir")}/jniRepository-shared
+     */
+    public SharedJniRepository() {
+        this(new File(System.getProperty("java.io.tmpdir"), "jniRepository-shared"));
+    }
+
+    @Override
+    File storeEntry(LibrarySource source, File entryDirectory, String libraryName, HashCode hash, long size) throws IOException {
+        String leaseId = references.lease().id;
+        entryDirectory.mkdirs();
+        try (EntryLock entryLock = EntryLock.lock(entryDirectory)) {
+            File libraryFile = super.storeEntry(source, entryDirectory, libraryName, hash, size);
+            File referencesDirectory = new File(entryDirectory, REFERENCES_DIRECTORY);
+            referencesDirectory.mkdirs();
+            File reference = new File(referencesDirectory, leaseId);
+            if (!reference.isFile() && !reference.createNewFile()) {
+                throw new IOException("Reference " + reference + " could not be created.");
+            }
+            references.entries.add(entryDirectory);
+            return libraryFile;
+        }
+    }
+
+    /**
+     * Removes the references of this repository and deletes the entries that are not referenced
+     * by other repositories anymore. The shared directory is kept.
+     */
+    @Override
+    protected void cleanRepositoryDirectory() throws IOException {
+        references.release();
+    }
+
+    /**
+     * The references and the lease of an unreachable repository are released like when it is
+     * closed.
+     */
+    @Override
+    protected Runnable cleanupAction() {
+        return references;
+    }
+
+    /**
+     * Removes the references of the processes that are not alive anymore, and deletes the
+     * library files of the entries of the whole shared directory that are not referenced.
+     *
+     * @throws JniRepositoryException If the shared directory could not be swept.
+     */
+    public void sweep() throws JniRepositoryException {
+        try {
+            Map<String, Boolean> liveLeases = new HashMap<>();
+            sweepDirectory(sharedDirectory, liveLeases);
+            File[] leases = new File(sharedDirectory, LEASES_DIRECTORY).listFiles();
+            if (leases != null) {
+                for (File leaseFile : leases) {
+                    if (!leaseFile.getName().endsWith(TEMPORARY_SUFFIX)) {
+                        Lease.deleteIfDead(leaseFile);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new JniRepositoryException(e);
+        }
+    }
+
+    private void sweepDirectory(File directory, Map<String, Boolean> liveLeases) throws IOException {
+        if (new File(directory, REFERENCES_DIRECTORY).isDirectory()) {
+            sweepEntry(sharedDirectory, directory, liveLeases);
+            return;
+        }
+        File[] children = directory.listFiles(File::isDirectory);
+        if (children != null) {
+            for (File child : children) {
+                if (!LEASES_DIRECTORY.equals(child.getName())) {
+                    sweepDirectory(child, liveLeases);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the dead references of the entry, and its library files when no reference is
+     * left. The liveness of the leases is cached along a sweep.
+     */
+    private static void sweepEntry(File sharedDirectory, File entryDirectory, Map<String, Boolean> liveLeases) throws IOException {
+        try (EntryLock entryLock = EntryLock.lock(entryDirectory)) {
+            File[] references = new File(entryDirectory, REFERENCES_DIRECTORY).listFiles();
+            boolean referenced = false;
+            if (references != null) {
+                for (File reference : references) {
+                    Boolean live = liveLeases.get(reference.getName());
+                    if (live == null) {
+                        live = Lease.isAlive(new File(new File(sharedDirectory, LEASES_DIRECTORY), reference.getName()));
+                        liveLeases.put(reference.getName(), live);
+                    }
+                    if (live) {
+                        referenced = true;
+                    } else {
+                        reference.delete();
+                    }
+                }
+            }
+            if (!referenced) {
+                File[] files = entryDirectory.listFiles(File::isFile);
+                if (files != null) {
+                    for (File file : files) {
+                        if (!LOCK_FILE.equals(file.getName())) {
+                            file.delete();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The lease of the repository and the entries that it references. It does not reference the
+     * repository, so it is released by the cleanup of an unreachable repository too. The lease
+     * is acquired and released with files, so it is guarded by a lock and not by a monitor that
+     * would pin a virtual thread during the I/O.
+     */
+    private static final class References implements Runnable {
+
+        private final File sharedDirectory;
+        private final Set<File> entries = ConcurrentHashMap.newKeySet();
+        private final Lock lock = new ReentrantLock();
+        private volatile Lease lease;
+
+        private References(File sharedDirectory) {
+            this.sharedDirectory = sharedDirectory;
+        }
+
+        private Lease lease() throws IOException {
+            Lease lease = this.lease;
+            if (lease != null) {
+                return lease;
+            }
+            lock.lock();
+            try {
+                if (this.lease == null) {
+                    this.lease = Lease.acquire(new File(sharedDirectory, LEASES_DIRECTORY));
+                }
+                return this.lease;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() throws IOException {
+            Lease lease = this.lease;
+            if (lease == null) {
+                return;
+            }
+            String leaseId = lease.id;
+            Map<String, Boolean> liveLeases = new HashMap<>();
+            liveLeases.put(leaseId, false);
+            for (File entryDirectory : entries) {
+                sweepEntry(sharedDirectory, entryDirectory, liveLeases);
+            }
+            entries.clear();
+            lock.lock();
+            try {
+                if (this.lease != null) {
+                    this.lease.release();
+                    this.lease = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                release();
+            } catch (IOException e) {
+                // the references of the lease are removed by a later sweep
+            }
+        }
+    }
+
+    /**
+     * Lock of an entry, held by this thread in the JVM and by this JVM in the host.
+     */
+    private static final class EntryLock implements AutoCloseable {
+
+        private final Lock lock;
+        private final FileChannel channel;
+
+        private EntryLock(Lock lock, FileChannel channel) {
+            this.lock = lock;
+            this.channel = channel;
+        }
+
+        private static EntryLock lock(File entryDirectory) throws IOException {
+            File lockFile = new File(entryDirectory, LOCK_FILE);
+            Lock lock = ENTRY_LOCKS.get(lockFile.getAbsolutePath());
+            lock.lock();
+            try {
+                FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                try {
+                    channel.lock();
+                    return new EntryLock(lock, channel);
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+            } catch (IOException | RuntimeException e) {
+                lock.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // closing the channel releases its file lock
+                channel.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Locked file that proves that a repository is alive. The lock is released by the operating
+     * system when the process dies.
+     */
+    private static final class Lease {
+
+        private final String id;
+        private final File file;
+        private final FileChannel channel;
+
+        private Lease(String id, File file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        /**
+         * The lease is locked in a temporary file and then renamed, so a sweep never finds it
+         * unlocked.
+         */
+        private static Lease acquire(File leasesDirectory) throws IOException {
+            leasesDirectory.mkdirs();
+            String id = UUID.randomUUID().toString();
+            File temporaryFile = new File(leasesDirectory, id + TEMPORARY_SUFFIX);
+            File file = new File(leasesDirectory, id);
+            FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                channel.lock();
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                temporaryFile.delete();
+                throw e;
+            }
+            LOCAL_LEASES.add(id);
+            return new Lease(id, file, channel);
+        }
+
+        private static boolean isAlive(File leaseFile) throws IOException {
+            if (LOCAL_LEASES.contains(leaseFile.getName())) {
+                return true;
+            }
+            try (FileChannel channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.WRITE)) {
+                FileLock lock = channel.tryLock();
+                if (lock == null) {
+                    return true;
+                }
+                lock.release();
+                return false;
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+        }
+
+        private static void deleteIfDead(File leaseFile) throws IOException {
+            if (LOCAL_LEASES.contains(leaseFile.getName())) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.WRITE)) {
+                if (channel.tryLock() != null) {
+                    leaseFile.delete();
+                }
+            } catch (NoSuchFileException e) {
+                // deleted by another sweep
+            }
+        }
+
+        private void release() throws IOException {
+            try {
+                file.delete();
+                channel.close();
+            } finally {
+                LOCAL_LEASES.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.blackbox.jnibox;
+
+import com.google.common.base.Splitter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Startup profile of a repository: the libraries that the application stored and loaded, in
+ * the order of their first use, and the milliseconds since the profile started when they were
+ * first stored and loaded. It is a text file with a line per library and tab separated fields:
+ *
+ * ${package} ${name} ${storedMillis} ${loadedMillis|-}
+ */
+final class StartupProfile {
+
+    private static final String HEADER = "# jnibox profile 1";
+    private static final String NONE = "-";
+    private static final int WARM_BUFFER = 64 * 1024;
+
+    private final File file;
+    private final long start = System.nanoTime();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<JniLibraryId, Entry> entries = new ConcurrentHashMap<>();
+
+    StartupProfile(File file) {
+        assert file != null;
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Records the first store of a library.
+     *
+     * @param libraryId The library.
+     */
+    void stored(JniLibraryId libraryId) {
+        if (!entries.containsKey(libraryId)) {
+            entries.putIfAbsent(libraryId, new Entry(libraryId, sequence.getAndIncrement(), millis(), -1L));
+        }
+    }
+
+    /**
+     * Records the first loading of a library.
+     *
+     * @param libraryId The library.
+     */
+    void loaded(JniLibraryId libraryId) {
+        stored(libraryId);
+        Entry entry = entries.get(libraryId);
+        if (entry.loadedMillis < 0) {
+            entry.loadedMillis = millis();
+        }
+    }
+
+    private long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Reads the libraries of the profile file, in order.
+     *
+     * @return The entries of the profile, empty if there is no profile file.
+     * @throws IOException If the profile could not be read or is corrupted.
+     */
+    List<Entry> read() throws IOException {
+        List<Entry> read = new ArrayList<>();
+        if (!file.isFile()) {
+            return read;
+        }
+        try (InputStream stream = Files.newInputStream(file.toPath())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> fields = Splitter.on('\t').splitToList(line);
+                if (fields.size() != 4) {
+                    throw new IOException("Corrupted jnibox profile line: " + line);
+                }
+                try {
+                    read.add(new Entry(new JniLibraryId(fields.get(0), fields.get(1)), read.size(),
+                            Long.parseLong(fields.get(2)), NONE.equals(fields.get(3)) ? -1L : Long.parseLong(fields.get(3))));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Corrupted jnibox profile line: " + line, e);
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Writes the recorded libraries in the profile file, replacing it atomically.
+     *
+     * @throws IOException If the profile could not be written.
+     */
+    void write() throws IOException {
+        List<Entry> recorded = new ArrayList<>(entries.values());
+        recorded.sort(Comparator.comparingLong(entry -> entry.order));
+        File directory = file.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        File temporaryFile = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporaryFile.toPath())) {
+                Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.write('\n');
+                for (Entry entry : recorded) {
+                    writer.write(entry.libraryId.getLibraryPackage() + '\t' + entry.libraryId.getLibraryName() + '\t'
+                            + entry.storedMillis + '\t' + (entry.loadedMillis < 0 ? NONE : String.valueOf(entry.loadedMillis)));
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporaryFile.delete();
+        }
+    }
+
+    /**
+     * Reads the whole file, so its pages are in the page cache when it is loaded.
+     *
+     * @param libraryFile The library file.
+     * @throws IOException If the file could not be read.
+     */
+    static void warm(File libraryFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(WARM_BUFFER);
+        try (FileChannel channel = FileChannel.open(libraryFile.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * A library of the profile.
+     */
+    static final class Entry {
+
+        private final JniLibraryId libraryId;
+        private final long order;
+        private final long storedMillis;
+        private volatile long loadedMillis;
+
+        private Entry(JniLibraryId libraryId, long order, long storedMillis, long loadedMillis) {
+            this.libraryId = libraryId;
+            this.order = order;
+            this.storedMillis = storedMillis;
+            this.loadedMillis = loadedMillis;
+        }
+
+        JniLibraryId getLibraryId() {
+            return libraryId;
+        }
+
+        boolean isLoaded() {
+            return loadedMillis >= 0;
+        }
+    }
+}
@@ -1,8 +1,24 @@
 package org.blackbox.jnibox;
 
+import org.apache.commons.io.FileUtils;
+
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * The repository directory of this repository is built with the following template:
@@ -19,11 +35,37 @@ import java.util.concurrent.atomic.AtomicInteger;
  *  - Multiple JVM creates instances of this type because the pid and user is in the dir name, and
  *
  *  - One JVM reates multiple instances of this type because the instance count is in the dir name.
+ *
+ * The JVMs of containers with the same hostname may have the same pid, so the count is
+ * increased until the directory does not exist yet.
+ *
+ * Every repository holds a FileChannel lock on ${repositoryDirectory}/.owner until its directory
+ * is removed. The directories of the JVMs that died without closing their repositories are
+ * deleted by reapOrphanedDirectories, or in the background when the first repository of this
+ * type of a JVM is created if the system property jnibox.reapOrphanedDirectories is true.
  */
 public final class TempDirJniRepository extends AbstractJniRepository {
     
     private final static AtomicInteger COUNT = new AtomicInteger(0);
 
+    private final static AtomicBoolean REAPED = new AtomicBoolean(false);
+
+    /**
+     * System property that enables the reaping of the orphaned directories in the background.
+     */
+    public static final String REAP_PROPERTY = "jnibox.reapOrphanedDirectories";
+
+    private static final Pattern DIRECTORY_NAME = Pattern.compile("\\d+@.+-jniRepository-\\d+");
+
+    private static final String OWNER_FILE = ".owner";
+
+    /**
+     * Owner locks of the repository directories of this JVM, by directory. Their files are never
+     * opened by the reaper, since closing any channel of a file may release all the locks of the
+     * JVM on that file.
+     */
+    private static final Map<File, FileChannel> OWNERS = new ConcurrentHashMap<>();
+
     public TempDirJniRepository(JniLibraryLoader jniLibraryLoader) {
         super(createRepositoryDir(), jniLibraryLoader);
     }
@@ -36,14 +78,148 @@ public final class TempDirJniRepository extends AbstractJniRepository {
 
         File tmpDir = new File(System.getProperty("java.io.tmpdir"));
         assert (tmpDir.exists());
-        int repositoryCount = COUNT.incrementAndGet();
-        String subdir = ManagementFactory.getRuntimeMXBean().getName() + "-" + "jniRepository-" + String.valueOf(repositoryCount);
-        String repositoryPath = tmpDir.getAbsolutePath() + File.separator + subdir;
+        File repositoryDirectory = createRepositoryDir(tmpDir);
 
-        File repositoryDirectory = new File(repositoryPath);
-        repositoryDirectory.mkdir();
+        if (Boolean.getBoolean(REAP_PROPERTY) && REAPED.compareAndSet(false, true)) {
+            defaultExecutor().execute(TempDirJniRepository::reapOrphanedDirectories);
+        }
+        return repositoryDirectory;
+    }
 
+    /**
+     * Creates a repository directory named like the ones of this type in the given directory,
+     * with the same instance count, so they never collide, and locks its owner file.
+     *
+     * @param parentDirectory The directory of the repository directory.
+     * @return The repository directory.
+     */
+    static File createRepositoryDir(File parentDirectory) {
+        File repositoryDirectory;
+        do {
+            int repositoryCount = COUNT.incrementAndGet();
+            String subdir = ManagementFactory.getRuntimeMXBean().getName() + "-" + "jniRepository-" + String.valueOf(repositoryCount);
+            repositoryDirectory = new File(parentDirectory.getAbsoluteFile(), subdir);
+        } while (!repositoryDirectory.mkdir() && repositoryDirectory.exists());
+        try {
+            lockOwner(repositoryDirectory);
+        } catch (IOException e) {
+            // the directory is not reaped while it has no owner file
+        }
         return repositoryDirectory;
     }
 
+    /**
+     * The owner file is locked in a temporary file and then renamed, so the reaper never finds
+     * it unlocked.
+     */
+    private static void lockOwner(File repositoryDirectory) throws IOException {
+        File temporaryFile = new File(repositoryDirectory, OWNER_FILE + ".tmp");
+        FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            channel.lock();
+            Files.move(temporaryFile.toPath(), new File(repositoryDirectory, OWNER_FILE).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            temporaryFile.delete();
+            throw e;
+        }
+        OWNERS.put(repositoryDirectory, channel);
+    }
+
+    /**
+     * Releases the owner lock of a repository directory once it has been removed.
+     *
+     * @param repositoryDirectory The repository directory.
+     */
+    static void releaseOwner(File repositoryDirectory) {
+        FileChannel channel = OWNERS.remove(repositoryDirectory.getAbsoluteFile());
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the lock is released anyway
+            }
+        }
+    }
+
+    /**
+     * Deletes the repository directories of this type, in java.io.tmpdir, whose owner is not
+     * alive anymore: its JVM crashed or was killed before closing its repositories, or it exited
+     * before their asynchronous close ended. The owner is alive while it holds the lock of the
+     * owner file of the directory, which the operating system releases when the JVM dies, so the
+     * JVMs of other hosts or pid namespaces that share the directory are told apart. A directory
+     * without owner file is never deleted.
+     *
+     * @return The deleted directories.
+     */
+    public static List<File> reapOrphanedDirectories() {
+        return reapOrphanedDirectories(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Deletes the orphaned repository directories of this type in the given directory.
+     *
+     * @param parentDirectory The directory of the repository directories.
+     * @return The deleted directories.
+     * @see #reapOrphanedDirectories()
+     */
+    static List<File> reapOrphanedDirectories(File parentDirectory) {
+        List<File> reaped = new ArrayList<>();
+        File[] directories = parentDirectory.getAbsoluteFile().listFiles(File::isDirectory);
+        if (directories == null) {
+            return reaped;
+        }
+        for (File directory : directories) {
+            if (!DIRECTORY_NAME.matcher(directory.getName()).matches() || OWNERS.containsKey(directory)) {
+                continue;
+            }
+            File ownerFile = new File(directory, OWNER_FILE);
+            try (FileChannel channel = FileChannel.open(ownerFile.toPath(), StandardOpenOption.WRITE)) {
+                FileLock lock = channel.tryLock();
+                // the directory is deleted holding the lock, so another reaper does not delete it twice
+                if (lock == null || !ownerFile.exists()) {
+                    continue;
+                }
+                FileUtils.deleteDirectory(directory);
+                reaped.add(directory);
+            } catch (NoSuchFileException e) {
+                // being created, or deleted by another reaper
+            } catch (IOException | OverlappingFileLockException e) {
+                // not deletable by this user, it is left behind
+            }
+        }
+        return reaped;
+    }
+
+    @Override
+    protected void cleanRepositoryDirectory() throws IOException {
+        try {
+            super.cleanRepositoryDirectory();
+        } finally {
+            releaseOwner(new File(getRepositoryDirectory()));
+        }
+    }
+
+    @Override
+    protected Runnable cleanupAction() {
+        return ownerCleanup(super.cleanupAction(), new File(getRepositoryDirectory()));
+    }
+
+    /**
+     * Returns the cleanup action that releases the owner lock once the directory is removed.
+     *
+     * @param cleanupAction The cleanup action that removes the directory.
+     * @param repositoryDirectory The repository directory.
+     * @return The cleanup action.
+     */
+    static Runnable ownerCleanup(Runnable cleanupAction, File repositoryDirectory) {
+        return () -> {
+            try {
+                cleanupAction.run();
+            } finally {
+                releaseOwner(repositoryDirectory);
+            }
+        };
+    }
+
 }
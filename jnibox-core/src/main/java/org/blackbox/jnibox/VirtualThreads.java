@@ -0,0 +1,50 @@
+package org.blackbox.jnibox;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The virtual threads of Java 21, found by reflection since jnibox runs on Java 11.
+ */
+final class VirtualThreads {
+
+    private static final Executor EXECUTOR = createExecutor();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true if the JVM has virtual threads.
+     *
+     * @return True if the JVM has virtual threads.
+     */
+    static boolean isSupported() {
+        return EXECUTOR != null;
+    }
+
+    /**
+     * Returns an executor that runs every task in a new virtual thread, shared by the
+     * repositories. It is never shut down, the virtual threads end with their tasks.
+     *
+     * @return The virtual thread per task executor.
+     * @throws UnsupportedOperationException If the JVM has no virtual threads.
+     */
+    static Executor executor() {
+        if (EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21, this is Java " + System.getProperty("java.version"));
+        }
+        return EXECUTOR;
+    }
+
+    private static Executor createExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // a preview API of Java 19 and 20 that is not enabled
+            return null;
+        }
+    }
+}
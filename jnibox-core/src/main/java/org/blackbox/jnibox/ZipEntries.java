@@ -0,0 +1,126 @@
+package org.blackbox.jnibox;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader of the zip central directory that locates the data of STORED (uncompressed)
+ * entries, so they can be copied straight from the file. The zip may be a region of a bigger
+ * file, that is the case of nested jars in fat jars. The central directory is mapped and not
+ * read in the heap.
+ *
+ * Zip64 archives and compressed entries are not supported, in that case null is returned and
+ * the caller falls back to the stream.
+ */
+final class ZipEntries {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_LENGTH = 46;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_LENGTH = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int STORED = 0;
+
+    private ZipEntries() {
+    }
+
+    /**
+     * Locates the data of a STORED entry of the zip that is in the given region of the channel.
+     *
+     * @param channel Channel of the file that contains the zip.
+     * @param offset Offset of the zip in the file.
+     * @param length Length of the zip in the file.
+     * @param entryName Name of the entry.
+     * @return The offset in the file and the length of the entry data, or null if the entry does
+     * not exist, is compressed or the zip is not supported.
+     * @throws IOException If the file could not be read.
+     */
+    static long[] findStoredEntry(FileChannel channel, long offset, long length, String entryName) throws IOException {
+        assert channel != null;
+        assert entryName != null;
+
+        long tailLength = Math.min(length, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        if (tailLength < EOCD_LENGTH) {
+            return null;
+        }
+        MappedByteBuffer tail = map(channel, offset + length - tailLength, tailLength);
+        int eocd = -1;
+        for (int position = (int) tailLength - EOCD_LENGTH; position >= 0; position--) {
+            if (tail.getInt(position) == EOCD_SIGNATURE) {
+                eocd = position;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            return null;
+        }
+        long centralLength = unsignedInt(tail, eocd + 12);
+        long centralOffset = unsignedInt(tail, eocd + 16);
+        if (centralLength == ZIP64_MAGIC || centralOffset == ZIP64_MAGIC) {
+            return null;
+        }
+        // the archive may be prefixed (launch scripts), the offsets are corrected by the shift
+        long centralStart = length - tailLength + eocd - centralLength;
+        long shift = centralStart - centralOffset;
+        if (centralStart < 0 || shift < 0) {
+            return null;
+        }
+
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        MappedByteBuffer central = map(channel, offset + centralStart, centralLength);
+        int position = 0;
+        while (position + CENTRAL_LENGTH <= centralLength && central.getInt(position) == CENTRAL_SIGNATURE) {
+            int nameLength = unsignedShort(central, position + 28);
+            int extraLength = unsignedShort(central, position + 30);
+            int commentLength = unsignedShort(central, position + 32);
+            if (nameLength == name.length && matches(central, position + CENTRAL_LENGTH, name)) {
+                int method = unsignedShort(central, position + 10);
+                long compressedLength = unsignedInt(central, position + 20);
+                long localOffset = unsignedInt(central, position + 42);
+                if (method != STORED || compressedLength == ZIP64_MAGIC || localOffset == ZIP64_MAGIC) {
+                    return null;
+                }
+                return new long[]{dataOffset(channel, offset + shift + localOffset), compressedLength};
+            }
+            position += CENTRAL_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private static long dataOffset(FileChannel channel, long localOffset) throws IOException {
+        MappedByteBuffer local = map(channel, localOffset, LOCAL_LENGTH);
+        if (local.getInt(0) != LOCAL_SIGNATURE) {
+            throw new IOException("Invalid zip local header at " + localOffset);
+        }
+        return localOffset + LOCAL_LENGTH + unsignedShort(local, 26) + unsignedShort(local, 28);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static boolean matches(MappedByteBuffer buffer, int position, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(position + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int unsignedShort(MappedByteBuffer buffer, int position) {
+        return buffer.getShort(position) & 0xFFFF;
+    }
+
+    private static long unsignedInt(MappedByteBuffer buffer, int position) {
+        return buffer.getInt(position) & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,80 @@
+package org.blackbox.jnibox;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private JniRepository jniRepository;
+
+    @Before
+    public void setup(){
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() {
+        String repositoryPath = jniRepository.getRepositoryDirectory();
+        try {
+            jniRepository.close();
+        } catch (JniRepositoryException e) {
+            Assert.fail();
+        }
+        Assert.assertFalse(new File(repositoryPath).exists());
+    }
+
+    @Test
+    public void storeAndLoadAsync() throws Exception {
+        CompletableFuture<String> composed = jniRepository.storeAndLoadAsync(RESOURCE_PACKAGE, RESOURCE_NAME)
+                .thenApply(JniLibrary::getLibraryName);
+
+        Assert.assertEquals(RESOURCE_NAME, composed.get());
+        Assert.assertEquals(1, jniRepository.size());
+    }
+
+    @Test
+    public void storeThenLoadAsyncInExecutor() throws Exception {
+        AtomicInteger tasks = new AtomicInteger();
+        Executor executor = command -> {
+            tasks.incrementAndGet();
+            command.run();
+        };
+
+        JniLibrary jniLibrary = jniRepository.storeAsync(RESOURCE_PACKAGE, RESOURCE_NAME, executor)
+                .thenCompose(stored -> jniRepository.loadAsync(RESOURCE_PACKAGE, RESOURCE_NAME, executor))
+                .get();
+
+        Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+        Assert.assertEquals(2, tasks.get());
+    }
+
+    @Test
+    public void loadAsyncNotFound() throws Exception {
+        try {
+            jniRepository.loadAsync("org.mycompany.myproject", "mylib.so").get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof JniLibraryNotFoundException);
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+
+}
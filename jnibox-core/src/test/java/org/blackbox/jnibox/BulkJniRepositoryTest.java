@@ -0,0 +1,87 @@
+package org.blackbox.jnibox;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+public class BulkJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+    private static final Set<String> RESOURCE_NAMES = new HashSet<String>(Arrays.asList(
+            "firstMockLibrary", "secondMockLibrary", "thirdMockLibrary"));
+
+    private TempDirJniRepository jniRepository;
+
+    @Before
+    public void setup(){
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() {
+        String repositoryPath = jniRepository.getRepositoryDirectory();
+        try {
+            jniRepository.close();
+        } catch (JniRepositoryException e) {
+            Assert.fail();
+        }
+        Assert.assertFalse(new File(repositoryPath).exists());
+    }
+
+    @Test
+    public void storeAndLoadAll() throws JniRepositoryException {
+        jniRepository.setExecutor(Executors.newFixedThreadPool(2));
+        Set<JniLibrary> jniLibraries = jniRepository.storeAndLoadAll(Arrays.asList(
+                new JniLibraryId(RESOURCE_PACKAGE, "firstMockLibrary"),
+                new JniLibraryId(RESOURCE_PACKAGE, "secondMockLibrary")));
+
+        Assert.assertEquals(2, jniLibraries.size());
+        Assert.assertEquals(2, jniRepository.size());
+        for (JniLibrary jniLibrary : jniLibraries) {
+            Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+            Assert.assertTrue(new File(jniLibrary.getLibraryPath()).isFile());
+        }
+    }
+
+    @Test
+    public void storeAllPackage() throws JniRepositoryException {
+        Set<JniLibrary> jniLibraries = jniRepository.storeAll(RESOURCE_PACKAGE);
+
+        Set<String> names = new HashSet<String>();
+        for (JniLibrary jniLibrary : jniLibraries) {
+            Assert.assertEquals(JniLibrary.Status.STORED, jniLibrary.getStatus());
+            names.add(jniLibrary.getLibraryName());
+        }
+        Assert.assertEquals(RESOURCE_NAMES, names);
+    }
+
+    @Test
+    public void aggregateFailures() throws JniRepositoryException {
+        JniLibraryId missing = new JniLibraryId("org.mycompany.myproject", "mylib.so");
+        try {
+            jniRepository.storeAll(Arrays.asList(new JniLibraryId(RESOURCE_PACKAGE, "firstMockLibrary"), missing));
+            Assert.fail();
+        } catch (JniRepositoryBulkException e) {
+            Assert.assertEquals(1, e.getLibraries().size());
+            Assert.assertEquals("firstMockLibrary", e.getLibraries().iterator().next().getLibraryName());
+            Assert.assertEquals(1, e.getFailures().size());
+            Assert.assertTrue(e.getFailures().containsKey(missing));
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+
+}
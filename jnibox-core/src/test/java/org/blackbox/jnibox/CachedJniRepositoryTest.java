@@ -0,0 +1,76 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class CachedJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private File cacheDirectory;
+
+    @Before
+    public void setup() {
+        cacheDirectory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(cacheDirectory);
+    }
+
+    @Test
+    public void reuseBetweenRepositories() throws Exception {
+        JniRepository jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        JniLibrary jniLibrary = jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+        File libraryFile = new File(jniLibrary.getLibraryPath());
+        Assert.assertTrue(libraryFile.isFile());
+        Assert.assertEquals(RESOURCE_NAME, libraryFile.getName());
+        jniRepository.close();
+
+        Assert.assertTrue(libraryFile.isFile());
+        Assert.assertTrue(libraryFile.setLastModified(0L));
+
+        jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+        Assert.assertEquals(libraryFile.getAbsolutePath(), jniLibrary.getLibraryPath());
+        Assert.assertEquals(0L, libraryFile.lastModified());
+        jniRepository.close();
+    }
+
+    @Test
+    public void replaceCorruptedEntry() throws Exception {
+        JniRepository jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        File libraryFile = new File(jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME).getLibraryPath());
+        byte[] content = Files.toByteArray(libraryFile);
+        jniRepository.close();
+
+        byte[] corrupted = content.clone();
+        corrupted[0]++;
+        Files.write(corrupted, libraryFile);
+
+        jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        JniLibrary jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+        Assert.assertEquals(libraryFile.getAbsolutePath(), jniLibrary.getLibraryPath());
+        Assert.assertEquals(new String(content, StandardCharsets.UTF_8), Files.toString(libraryFile, StandardCharsets.UTF_8));
+        jniRepository.close();
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+public class CloningJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+
+    private File firstDirectory;
+    private File secondDirectory;
+    private File thirdDirectory;
+
+    @Before
+    public void setup() {
+        firstDirectory = Files.createTempDir();
+        secondDirectory = Files.createTempDir();
+        thirdDirectory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(firstDirectory);
+        FileUtils.deleteDirectory(secondDirectory);
+        FileUtils.deleteDirectory(thirdDirectory);
+    }
+
+    @Test
+    public void hardLink() throws Exception {
+        File firstFile = store(firstDirectory, LibraryCloning.HARD_LINK, "firstMockLibrary");
+        File secondFile = store(secondDirectory, LibraryCloning.HARD_LINK, "firstMockLibrary");
+        Assert.assertNotEquals(firstFile, secondFile);
+        Assert.assertEquals(inode(firstFile), inode(secondFile));
+        Assert.assertTrue((Integer) java.nio.file.Files.getAttribute(secondFile.toPath(), "unix:nlink") >= 2);
+
+        // the link survives the original repository
+        FileUtils.deleteDirectory(firstDirectory);
+        File thirdFile = store(thirdDirectory, LibraryCloning.HARD_LINK, "firstMockLibrary");
+        Assert.assertEquals(inode(secondFile), inode(thirdFile));
+        Assert.assertTrue(FileUtils.contentEquals(secondFile, thirdFile));
+    }
+
+    @Test
+    public void cloneAndCopy() throws Exception {
+        File firstFile = store(firstDirectory, LibraryCloning.CLONE, "secondMockLibrary");
+        File secondFile = store(secondDirectory, LibraryCloning.CLONE, "secondMockLibrary");
+        Assert.assertNotEquals(inode(firstFile), inode(secondFile));
+        Assert.assertTrue(FileUtils.contentEquals(firstFile, secondFile));
+
+        File copiedFile = store(thirdDirectory, LibraryCloning.COPY, "secondMockLibrary");
+        Assert.assertNotEquals(inode(firstFile), inode(copiedFile));
+    }
+
+    @Test
+    public void rewrittenResourceIsNotCloned() throws Exception {
+        // a compressed resource rewritten at the same path, like a redeployed application
+        File resources = new File(thirdDirectory, "resources");
+        File compressed = new File(resources, "org/blackbox/jnibox/rewritten/libx.so.gz");
+        compressed.getParentFile().mkdirs();
+        writeCompressed(compressed, "version-1");
+        File firstFile;
+        File secondFile;
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{resources.toURI().toURL()}, contextClassLoader)) {
+            thread.setContextClassLoader(classLoader);
+            firstFile = store(firstDirectory, LibraryCloning.HARD_LINK, "org.blackbox.jnibox.rewritten", "libx.so");
+            writeCompressed(compressed, "version-2");
+            compressed.setLastModified(compressed.lastModified() + 2000L);
+            secondFile = store(secondDirectory, LibraryCloning.HARD_LINK, "org.blackbox.jnibox.rewritten", "libx.so");
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        Assert.assertEquals("version-1", FileUtils.readFileToString(firstFile, StandardCharsets.UTF_8));
+        Assert.assertEquals("version-2", FileUtils.readFileToString(secondFile, StandardCharsets.UTF_8));
+        Assert.assertNotEquals(inode(firstFile), inode(secondFile));
+    }
+
+    @Test
+    public void replacedFileIsNotCloned() throws Exception {
+        // the modification time is preserved, like cp -p or rsync do
+        File source = new File(thirdDirectory, "libfile.so");
+        Files.write("version-1", source, StandardCharsets.UTF_8);
+        long lastModified = source.lastModified();
+        File firstFile = storeFile(firstDirectory, source);
+
+        Files.write("version-10", source, StandardCharsets.UTF_8);
+        source.setLastModified(lastModified);
+        File secondFile = storeFile(secondDirectory, source);
+        Assert.assertEquals("version-10", FileUtils.readFileToString(secondFile, StandardCharsets.UTF_8));
+
+        // same size and modification time, but another file
+        File replacement = new File(thirdDirectory, "libfile.so.new");
+        Files.write("version-11", replacement, StandardCharsets.UTF_8);
+        replacement.setLastModified(lastModified);
+        java.nio.file.Files.move(replacement.toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        File fourthDirectory = new File(thirdDirectory, "repository");
+        File thirdFile = storeFile(fourthDirectory, source);
+
+        Assert.assertEquals("version-1", FileUtils.readFileToString(firstFile, StandardCharsets.UTF_8));
+        Assert.assertEquals("version-11", FileUtils.readFileToString(thirdFile, StandardCharsets.UTF_8));
+        Assert.assertNotEquals(inode(secondFile), inode(thirdFile));
+    }
+
+    private static File storeFile(File repositoryDirectory, File source) throws JniRepositoryException {
+        ConfigurableJniRepository jniRepository = new ConfigurableJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        jniRepository.setCloning(LibraryCloning.HARD_LINK);
+        return new File(jniRepository.store(source.getPath(), RESOURCE_PACKAGE, "libfile.so").getLibraryPath());
+    }
+
+    private static void writeCompressed(File file, String content) throws IOException {
+        try (OutputStream stream = new GZIPOutputStream(new FileOutputStream(file))) {
+            stream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static File store(File repositoryDirectory, LibraryCloning cloning, String libraryName) throws JniRepositoryException {
+        return store(repositoryDirectory, cloning, RESOURCE_PACKAGE, libraryName);
+    }
+
+    private static File store(File repositoryDirectory, LibraryCloning cloning, String libraryPackage, String libraryName) throws JniRepositoryException {
+        ConfigurableJniRepository jniRepository = new ConfigurableJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        jniRepository.setCloning(cloning);
+        return new File(jniRepository.store(libraryPackage, libraryName).getLibraryPath());
+    }
+
+    private static Object inode(File file) throws IOException {
+        return java.nio.file.Files.getAttribute(file.toPath(), "unix:ino");
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
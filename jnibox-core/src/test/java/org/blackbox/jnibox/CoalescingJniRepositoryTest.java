@@ -0,0 +1,107 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CoalescingJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+    private static final int THREADS = 8;
+
+    private final AtomicInteger stores = new AtomicInteger();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private JniRepository jniRepository;
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        jniRepository = new ConfigurableJniRepository(Files.createTempDir(), libraryPath -> {
+            loads.incrementAndGet();
+            pause();
+        }) {
+            @Override
+            protected File storeLibraryFile(LibrarySource source, String libraryPackage, String libraryName) throws IOException {
+                stores.incrementAndGet();
+                pause();
+                return super.storeLibraryFile(source, libraryPackage, libraryName);
+            }
+        };
+        executorService = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws JniRepositoryException {
+        executorService.shutdownNow();
+        jniRepository.close();
+    }
+
+    @Test
+    public void concurrentStoreAndLoad() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JniLibrary>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executorService.submit((Callable<JniLibrary>) () -> {
+                start.await();
+                return jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+            }));
+        }
+        start.countDown();
+
+        JniLibrary jniLibrary = futures.get(0).get();
+        for (Future<JniLibrary> future : futures) {
+            Assert.assertSame(jniLibrary, future.get());
+        }
+        Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+        Assert.assertEquals(1, stores.get());
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, jniRepository.size());
+    }
+
+    @Test
+    public void concurrentFailure() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JniLibrary>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executorService.submit((Callable<JniLibrary>) () -> {
+                start.await();
+                return jniRepository.store(RESOURCE_PACKAGE, "mylib.so");
+            }));
+        }
+        start.countDown();
+
+        for (Future<JniLibrary> future : futures) {
+            try {
+                future.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof JniRepositoryException);
+            }
+        }
+        Assert.assertEquals(0, jniRepository.size());
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(50L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
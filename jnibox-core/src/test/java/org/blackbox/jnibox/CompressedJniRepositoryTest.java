@@ -0,0 +1,94 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressedJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.compressed";
+
+    private File directory;
+    private byte[] content;
+    private ClassLoader contextClassLoader;
+    private TempDirJniRepository jniRepository;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDir();
+        content = new byte[128 * 1024];
+        new Random(42).nextBytes(content);
+        File packageDirectory = new File(directory, RESOURCE_PACKAGE.replace('.', '/'));
+        packageDirectory.mkdirs();
+        Files.write(content, new File(packageDirectory, "plainMockLibrary"));
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(packageDirectory, "gzipMockLibrary.gz")))) {
+            out.write(content);
+        }
+        try (OutputStream out = new ZstdOutputStream(new FileOutputStream(new File(packageDirectory, "zstdMockLibrary.zst")))) {
+            out.write(content);
+        }
+        try (OutputStream out = new XZOutputStream(new FileOutputStream(new File(packageDirectory, "xzMockLibrary.xz")), new LZMA2Options())) {
+            out.write(content);
+        }
+        // the plain library is preferred to its compressed variant
+        Files.write(new byte[]{1, 2, 3}, new File(packageDirectory, "plainMockLibrary.gz"));
+
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{directory.toURI().toURL()}, contextClassLoader));
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+        jniRepository.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void storeCompressed() throws Exception {
+        for (String libraryName : new String[]{"gzipMockLibrary", "zstdMockLibrary", "xzMockLibrary", "plainMockLibrary"}) {
+            JniLibrary jniLibrary = jniRepository.storeAndLoad(RESOURCE_PACKAGE, libraryName);
+            File libraryFile = new File(jniLibrary.getLibraryPath());
+            Assert.assertEquals(libraryName, libraryFile.getName());
+            Assert.assertArrayEquals(libraryName, content, Files.toByteArray(libraryFile));
+        }
+    }
+
+    @Test
+    public void storeAllCompressed() throws Exception {
+        Set<String> names = new HashSet<>();
+        for (JniLibrary jniLibrary : jniRepository.storeAll(RESOURCE_PACKAGE)) {
+            names.add(jniLibrary.getLibraryName());
+            Assert.assertArrayEquals(content, Files.toByteArray(new File(jniLibrary.getLibraryPath())));
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(
+                "plainMockLibrary", "gzipMockLibrary", "zstdMockLibrary", "xzMockLibrary")), names);
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DependencyJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+
+    private File sources;
+    private TempDirJniRepository jniRepository;
+    private List<String> loaded;
+
+    @Before
+    public void setup() {
+        sources = Files.createTempDir();
+        loaded = Collections.synchronizedList(new ArrayList<String>());
+        jniRepository = new TempDirJniRepository(libraryPath -> loaded.add(new File(libraryPath).getName()));
+        jniRepository.setResolveDependencies(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jniRepository.close();
+        FileUtils.deleteDirectory(sources);
+    }
+
+    @Test
+    public void loadDependenciesFirst() throws Exception {
+        declare("libfoo.so", ElfFile.currentMachine(), "libbar.so", "libbaz.so", "libc.so.6");
+        declare("libbar.so", ElfFile.currentMachine(), "libbaz.so");
+        declare("libbaz.so", ElfFile.currentMachine());
+
+        jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+
+        Assert.assertEquals(Arrays.asList("libbaz.so", "libbar.so", "libfoo.so"), loaded);
+        JniLibrary bar = jniRepository.declare(RESOURCE_PACKAGE, "libbar.so");
+        Assert.assertEquals(JniLibrary.Status.LOADED, bar.getStatus());
+        Assert.assertEquals(1, bar.getDependencies().size());
+        Assert.assertEquals("libbaz.so", bar.getDependencies().get(0).getLibraryName());
+    }
+
+    @Test
+    public void loadCycle() throws Exception {
+        declare("libfoo.so", ElfFile.currentMachine(), "libbar.so");
+        declare("libbar.so", ElfFile.currentMachine(), "libfoo.so");
+
+        jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+
+        Assert.assertEquals(Arrays.asList("libbar.so", "libfoo.so"), loaded);
+    }
+
+    @Test
+    public void loadVersionedSoname() throws Exception {
+        declare(RESOURCE_PACKAGE, "libbar.so", "libbar.so.1");
+        declare("libfoo.so", ElfFile.currentMachine(), "libbar.so.1");
+
+        // stored, so it is matched by its SONAME
+        jniRepository.load(RESOURCE_PACKAGE, "libbar.so");
+        jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+
+        Assert.assertEquals(Arrays.asList("libbar.so", "libfoo.so"), loaded);
+        JniLibrary foo = jniRepository.declare(RESOURCE_PACKAGE, "libfoo.so");
+        Assert.assertEquals(1, foo.getDependencies().size());
+        Assert.assertEquals("libbar.so", foo.getDependencies().get(0).getLibraryName());
+    }
+
+    @Test
+    public void loadDeclaredVersionedSoname() throws Exception {
+        declare(RESOURCE_PACKAGE, "libbar.so", "libbar.so.1");
+        declare("libfoo.so", ElfFile.currentMachine(), "libbar.so.1");
+
+        jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+
+        Assert.assertEquals(Arrays.asList("libbar.so", "libfoo.so"), loaded);
+    }
+
+    @Test
+    public void preferSamePackage() throws Exception {
+        declare("org.blackbox.jnibox.test.a", "libbar.so", null);
+        declare(RESOURCE_PACKAGE, "libbar.so", null);
+        declare("org.blackbox.jnibox.test.z", "libbar.so", null);
+        declare("libfoo.so", ElfFile.currentMachine(), "libbar.so");
+
+        jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+
+        JniLibrary foo = jniRepository.declare(RESOURCE_PACKAGE, "libfoo.so");
+
+        Assert.assertEquals(RESOURCE_PACKAGE, foo.getDependencies().get(0).getLibraryPackage());
+    }
+
+    @Test
+    public void rejectOtherMachine() throws Exception {
+        int otherMachine = ElfFile.currentMachine() == ElfFile.EM_X86_64 ? ElfFile.EM_AARCH64 : ElfFile.EM_X86_64;
+        declare("libfoo.so", otherMachine);
+
+        try {
+            jniRepository.load(RESOURCE_PACKAGE, "libfoo.so");
+            Assert.fail();
+        } catch (JniRepositoryException e) {
+            Assert.assertTrue(loaded.isEmpty());
+        }
+    }
+
+    private void declare(String name, int machine, String... needed) throws IOException {
+        File file = new File(sources, name);
+        Files.write(elf(machine, null, needed), file);
+        jniRepository.declare(file.getAbsolutePath(), RESOURCE_PACKAGE, name);
+    }
+
+    private void declare(String libraryPackage, String name, String soname) throws IOException {
+        File file = new File(new File(sources, libraryPackage), name);
+        file.getParentFile().mkdirs();
+        Files.write(elf(ElfFile.currentMachine(), soname), file);
+        jniRepository.declare(file.getAbsolutePath(), libraryPackage, name);
+    }
+
+    /**
+     * Writes a minimal 64 bits little endian ELF shared library with the given DT_SONAME, if
+     * not null, and DT_NEEDED entries.
+     */
+    private static byte[] elf(int machine, String soname, String... needed) {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        strings.write(0);
+        int[] offsets = new int[needed.length];
+        for (int i = 0; i < needed.length; i++) {
+            offsets[i] = string(strings, needed[i]);
+        }
+        int sonameOffset = soname == null ? -1 : string(strings, soname);
+        int stringTable = 64 + 2 * 56;
+        int dynamic = (stringTable + strings.size() + 7) & ~7;
+        int dynamicSize = (needed.length + (soname == null ? 2 : 3)) * 16;
+        int size = dynamic + dynamicSize;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{0x7f, 'E', 'L', 'F', 2, 1, 1});
+        buffer.putShort(16, (short) 3);
+        buffer.putShort(18, (short) machine);
+        buffer.putInt(20, 1);
+        buffer.putLong(32, 64);
+        buffer.putShort(52, (short) 64);
+        buffer.putShort(54, (short) 56);
+        buffer.putShort(56, (short) 2);
+        // PT_LOAD of the whole file and PT_DYNAMIC
+        buffer.putInt(64, 1);
+        buffer.putLong(64 + 32, size);
+        buffer.putLong(64 + 40, size);
+        buffer.putInt(120, 2);
+        buffer.putLong(120 + 8, dynamic);
+        buffer.putLong(120 + 16, dynamic);
+        buffer.putLong(120 + 32, dynamicSize);
+        buffer.position(stringTable);
+        buffer.put(strings.toByteArray());
+        buffer.position(dynamic);
+        for (int offset : offsets) {
+            buffer.putLong(1).putLong(offset);
+        }
+        if (soname != null) {
+            buffer.putLong(14).putLong(sonameOffset);
+        }
+        buffer.putLong(5).putLong(stringTable);
+        buffer.putLong(0).putLong(0);
+        return buffer.array();
+    }
+
+    private static int string(ByteArrayOutputStream strings, String string) {
+        int offset = strings.size();
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        strings.write(bytes, 0, bytes.length);
+        strings.write(0);
+        return offset;
+    }
+}
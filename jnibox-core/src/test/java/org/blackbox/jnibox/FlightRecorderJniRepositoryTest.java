@@ -0,0 +1,92 @@
+package org.blackbox.jnibox;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FlightRecorderJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+    private static final String BULK_PACKAGE = "org.blackbox.jnibox.test.bulk";
+
+    private static final List<String> EVENTS = Arrays.asList("org.blackbox.jnibox.LibraryDeclare",
+            "org.blackbox.jnibox.LibraryStore", "org.blackbox.jnibox.LibraryLoad", "org.blackbox.jnibox.LibraryBulk");
+
+    @Test
+    public void recordEvents() throws Exception {
+        Map<String, RecordedEvent> events = new HashMap<>();
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withThreshold(java.time.Duration.ZERO);
+            }
+            recording.start();
+            useRepository();
+            recording.stop();
+            for (RecordedEvent event : read(recording)) {
+                events.put(event.getEventType().getName() + (event.hasField("libraryName") ? "/" + event.getString("libraryName") : ""), event);
+            }
+        }
+
+        RecordedEvent store = events.get("org.blackbox.jnibox.LibraryStore/" + RESOURCE_NAME);
+        Assert.assertEquals("file", store.getString("sourceType"));
+        Assert.assertEquals(new File(getClass().getResource("test/" + RESOURCE_NAME).toURI()).length(), store.getLong("bytes"));
+        Assert.assertNull(store.getString("failure"));
+        RecordedEvent load = events.get("org.blackbox.jnibox.LibraryLoad/" + RESOURCE_NAME);
+        Assert.assertEquals(store.getString("libraryPath"), load.getString("libraryPath"));
+        Assert.assertNotNull(events.get("org.blackbox.jnibox.LibraryDeclare/firstMockLibrary"));
+        RecordedEvent bulk = events.get("org.blackbox.jnibox.LibraryBulk");
+        Assert.assertEquals("storeAll", bulk.getString("operation"));
+        Assert.assertEquals(3, bulk.getInt("libraries"));
+        Assert.assertEquals(0, bulk.getInt("failures"));
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            useRepository();
+            recording.stop();
+            for (RecordedEvent event : read(recording)) {
+                Assert.assertFalse(EVENTS.contains(event.getEventType().getName()));
+            }
+        }
+    }
+
+    private static void useRepository() throws JniRepositoryException {
+        TempDirJniRepository jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+        jniRepository.declare(BULK_PACKAGE, "firstMockLibrary");
+        jniRepository.storeAll(BULK_PACKAGE);
+        jniRepository.close();
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws Exception {
+        Path file = Files.createTempFile("jnibox", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -10,17 +10,19 @@ import java.io.File;
 /**
  * Created by guillermoblascojimenez on 28/12/14.
  */
-public class JniLibraryAlreadyLoadedExceptionRepositoryTest {
+public class JniLibraryAlreadyLoadedRepositoryTest {
 
     private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
     private static final String RESOURCE_NAME = "someMockLibrary.so";
 
     private JniRepository jniRepository;
     private JniLibrary jniLibrary;
+    private CountingJniLibraryLoader jniLibraryLoader;
 
     @Before
     public void setup(){
-        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        jniLibraryLoader = new CountingJniLibraryLoader();
+        jniRepository = new TempDirJniRepository(jniLibraryLoader);
     }
 
     @After
@@ -34,19 +36,24 @@ public class JniLibraryAlreadyLoadedExceptionRepositoryTest {
         Assert.assertFalse(new File(repositoryPath).exists());
     }
 
-    @Test(expected = IllegalStateException.class)
-    public void storeExeption() throws JniRepositoryException {
+    @Test
+    public void loadTwice() throws JniRepositoryException {
         jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
         jniLibrary.load();
         jniLibrary.load();
 
+        Assert.assertEquals(jniLibrary.getStatus(), JniLibrary.Status.LOADED);
+        Assert.assertEquals(jniLibraryLoader.loads, 1);
     }
 
-    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+    private static class CountingJniLibraryLoader implements JniLibraryLoader {
+
+        private int loads;
 
         @Override
         public void load(String libraryPath) {
-            // do nothing, it is mocked
+            // do nothing but count, it is mocked
+            loads++;
         }
     }
 
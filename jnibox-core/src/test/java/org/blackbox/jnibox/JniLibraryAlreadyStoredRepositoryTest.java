@@ -0,0 +1,109 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class JniLibraryAlreadyStoredRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private JniRepository jniRepository;
+    private JniLibrary jniLibrary;
+
+    @Before
+    public void setup(){
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() {
+        String repositoryPath = jniRepository.getRepositoryDirectory();
+        try {
+            jniRepository.close();
+        } catch (JniRepositoryException e) {
+            Assert.fail();
+        }
+        Assert.assertFalse(new File(repositoryPath).exists());
+    }
+
+    @Test
+    public void storeTwice() throws JniRepositoryException {
+        jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+
+        Assert.assertEquals(jniLibrary.getStatus(), JniLibrary.Status.STORED);
+        Assert.assertEquals(jniLibrary.getJniRepository(), jniRepository);
+        Assert.assertEquals(jniLibrary.getLibraryName(), RESOURCE_NAME);
+        Assert.assertEquals(jniLibrary.getLibraryPackage(), RESOURCE_PACKAGE);
+        Assert.assertEquals(jniRepository.size(), 1);
+
+        Assert.assertSame(jniLibrary, jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME));
+        Assert.assertEquals(jniRepository.size(), 1);
+    }
+
+    @Test
+    public void storeFromAnotherPath() throws JniRepositoryException, IOException {
+        File sourceDirectory = Files.createTempDir();
+        File first = new File(sourceDirectory, "first");
+        File second = new File(sourceDirectory, "second");
+        Files.write("first", first, StandardCharsets.UTF_8);
+        Files.write("second", second, StandardCharsets.UTF_8);
+        try {
+            jniLibrary = jniRepository.store(first.getPath(), RESOURCE_PACKAGE, RESOURCE_NAME);
+            Assert.assertSame(jniLibrary, jniRepository.store(first.getAbsolutePath(), RESOURCE_PACKAGE, RESOURCE_NAME));
+            try {
+                jniRepository.store(second.getPath(), RESOURCE_PACKAGE, RESOURCE_NAME);
+                Assert.fail();
+            } catch (JniRepositoryException e) {
+                // expected, the library is stored from the first file
+            }
+            Assert.assertEquals("first", Files.toString(new File(jniLibrary.getLibraryPath()), StandardCharsets.UTF_8));
+        } finally {
+            first.delete();
+            second.delete();
+            sourceDirectory.delete();
+        }
+    }
+
+    @Test(expected = JniRepositoryException.class)
+    public void storeResourceFromPath() throws JniRepositoryException {
+        jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+        jniRepository.store(new File("someMockLibrary.so").getPath(), RESOURCE_PACKAGE, RESOURCE_NAME);
+    }
+
+    @Test
+    public void storePathFromResource() throws JniRepositoryException, IOException {
+        File sourceDirectory = Files.createTempDir();
+        File source = new File(sourceDirectory, RESOURCE_NAME);
+        Files.write("file", source, StandardCharsets.UTF_8);
+        try {
+            jniLibrary = jniRepository.store(source.getPath(), RESOURCE_PACKAGE, RESOURCE_NAME);
+            try {
+                jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+                Assert.fail();
+            } catch (JniRepositoryException e) {
+                // expected, the library is stored from the file
+            }
+            Assert.assertEquals("file", Files.toString(new File(jniLibrary.getLibraryPath()), StandardCharsets.UTF_8));
+        } finally {
+            source.delete();
+            sourceDirectory.delete();
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+
+}
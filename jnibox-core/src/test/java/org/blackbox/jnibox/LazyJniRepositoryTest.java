@@ -0,0 +1,77 @@
+package org.blackbox.jnibox;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Set;
+
+public class LazyJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private JniRepository jniRepository;
+    private int loads;
+
+    @Before
+    public void setup(){
+        jniRepository = new TempDirJniRepository(libraryPath -> loads++);
+    }
+
+    @After
+    public void tearDown() {
+        String repositoryPath = jniRepository.getRepositoryDirectory();
+        try {
+            jniRepository.close();
+        } catch (JniRepositoryException e) {
+            Assert.fail();
+        }
+        Assert.assertFalse(new File(repositoryPath).exists());
+    }
+
+    @Test
+    public void loadOnFirstUse() throws JniRepositoryException {
+        JniLibrary jniLibrary = jniRepository.declare(RESOURCE_PACKAGE, RESOURCE_NAME);
+
+        Assert.assertEquals(JniLibrary.Status.DECLARED, jniLibrary.getStatus());
+        Assert.assertNull(jniLibrary.getLibraryPath());
+        // only the owner file of the directory, no library is stored
+        Assert.assertEquals(0, new File(jniRepository.getRepositoryDirectory()).list((directory, name) -> !".owner".equals(name)).length);
+        Assert.assertEquals(1, jniRepository.size());
+
+        Assert.assertSame(jniLibrary, jniLibrary.ensureLoaded());
+        Assert.assertSame(jniLibrary, jniLibrary.ensureLoaded());
+
+        Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+        Assert.assertTrue(new File(jniLibrary.getLibraryPath()).isFile());
+        Assert.assertEquals(1, loads);
+    }
+
+    @Test
+    public void declareAll() throws JniRepositoryException {
+        Set<JniLibrary> jniLibraries = jniRepository.declareAll(Arrays.asList(
+                new JniLibraryId(RESOURCE_PACKAGE, RESOURCE_NAME),
+                new JniLibraryId("org.mycompany.myproject", "mylib.so")));
+
+        Assert.assertEquals(2, jniLibraries.size());
+        jniRepository.load(RESOURCE_PACKAGE, RESOURCE_NAME);
+        Assert.assertEquals(1, loads);
+    }
+
+    @Test
+    public void declaredNotFoundIsKept() throws JniRepositoryException {
+        JniLibrary jniLibrary = jniRepository.declare("org.mycompany.myproject", "mylib.so");
+        try {
+            jniLibrary.ensureLoaded();
+            Assert.fail();
+        } catch (JniRepositoryException e) {
+            Assert.assertEquals(JniLibrary.Status.DECLARED, jniLibrary.getStatus());
+            Assert.assertEquals(1, jniRepository.size());
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class LibrarySourceTest {
+
+    private static final String ENTRY_NAME = "org/blackbox/jnibox/test/someMockLibrary.so";
+
+    private File directory;
+    private byte[] content;
+
+    @Before
+    public void setup() {
+        directory = Files.createTempDir();
+        content = new byte[256 * 1024];
+        new Random(42).nextBytes(content);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void storedJarEntry() throws IOException {
+        File jar = new File(directory, "stored.jar");
+        Files.write(zip(ENTRY_NAME, content, ZipEntry.STORED), jar);
+
+        assertCopy(new URL("jar:" + jar.toURI() + "!/" + ENTRY_NAME), true);
+    }
+
+    @Test
+    public void deflatedJarEntry() throws IOException {
+        File jar = new File(directory, "deflated.jar");
+        Files.write(zip(ENTRY_NAME, content, ZipEntry.DEFLATED), jar);
+
+        assertCopy(new URL("jar:" + jar.toURI() + "!/" + ENTRY_NAME), false);
+    }
+
+    @Test
+    public void nestedStoredJarEntry() throws IOException {
+        byte[] inner = zip(ENTRY_NAME, content, ZipEntry.STORED);
+        File jar = new File(directory, "fat.jar");
+        Files.write(zip("BOOT-INF/lib/inner.jar", inner, ZipEntry.STORED), jar);
+
+        assertCopy(new URL("jar:" + jar.toURI() + "!/BOOT-INF/lib/inner.jar!/" + ENTRY_NAME), true);
+    }
+
+    @Test
+    public void file() throws IOException {
+        File file = new File(directory, "someMockLibrary.so");
+        Files.write(content, file);
+
+        assertCopy(file.toURI().toURL(), true);
+    }
+
+    private void assertCopy(URL url, boolean fromChannel) throws IOException {
+        LibrarySource source = LibrarySource.of(url);
+        Assert.assertEquals(fromChannel, source.toString().contains("@"));
+        Assert.assertArrayEquals(content, source.read());
+
+        File target = new File(directory, "target.so");
+        Assert.assertEquals(content.length, source.copyTo(target));
+        Assert.assertArrayEquals(content, Files.toByteArray(target));
+    }
+
+    private static byte[] zip(String entryName, byte[] entryContent, int method) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            ZipEntry entry = new ZipEntry(entryName);
+            entry.setMethod(method);
+            if (method == ZipEntry.STORED) {
+                CRC32 crc = new CRC32();
+                crc.update(entryContent);
+                entry.setSize(entryContent.length);
+                entry.setCompressedSize(entryContent.length);
+                entry.setCrc(crc.getValue());
+            }
+            zip.putNextEntry(entry);
+            zip.write(entryContent);
+            zip.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+}
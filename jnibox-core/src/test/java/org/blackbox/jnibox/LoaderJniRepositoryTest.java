@@ -0,0 +1,54 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoaderJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+
+    private File directory;
+
+    @Before
+    public void setup() {
+        directory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void loaderPerLibrary() throws Exception {
+        RecordingJniLibraryLoader repositoryLoader = new RecordingJniLibraryLoader();
+        RecordingJniLibraryLoader libraryLoader = new RecordingJniLibraryLoader();
+        ConfigurableJniRepository jniRepository = new ConfigurableJniRepository(directory, repositoryLoader);
+        jniRepository.setJniLibraryLoader(RESOURCE_PACKAGE, "secondMockLibrary", libraryLoader);
+
+        JniLibrary first = jniRepository.storeAndLoad(RESOURCE_PACKAGE, "firstMockLibrary");
+        JniLibrary second = jniRepository.storeAndLoad(RESOURCE_PACKAGE, "secondMockLibrary");
+        Assert.assertEquals(List.of(first.getLibraryPath()), repositoryLoader.loaded);
+        Assert.assertEquals(List.of(second.getLibraryPath()), libraryLoader.loaded);
+        jniRepository.close();
+    }
+
+    private static class RecordingJniLibraryLoader implements JniLibraryLoader {
+
+        private final List<String> loaded = new ArrayList<>();
+
+        @Override
+        public void load(String libraryPath) {
+            loaded.add(libraryPath);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+public class ManifestJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.manifest";
+
+    private File classesDirectory;
+    private File cacheDirectory;
+    private File packageDirectory;
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setup() throws IOException {
+        classesDirectory = Files.createTempDir();
+        cacheDirectory = Files.createTempDir();
+        packageDirectory = new File(classesDirectory, RESOURCE_PACKAGE.replace('.', '/'));
+        new File(packageDirectory, "linux-x86_64").mkdirs();
+        Files.write("plain", new File(packageDirectory, "plainMockLibrary"), StandardCharsets.UTF_8);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(packageDirectory, "linux-x86_64/platformMockLibrary.gz")))) {
+            out.write("platform".getBytes(StandardCharsets.UTF_8));
+        }
+        JniLibraryManifest.scan(classesDirectory, Collections.singleton(RESOURCE_PACKAGE))
+                .write(new File(classesDirectory, JniLibraryManifest.LOCATION));
+
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{classesDirectory.toURI().toURL()}, contextClassLoader));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+        FileUtils.deleteDirectory(classesDirectory);
+        FileUtils.deleteDirectory(cacheDirectory);
+    }
+
+    @Test
+    public void readWrite() throws IOException {
+        JniLibraryManifest manifest = JniLibraryManifest.load(Thread.currentThread().getContextClassLoader());
+        Assert.assertEquals(2, manifest.getEntries().size());
+        JniLibraryManifest.Entry entry = manifest.find(RESOURCE_PACKAGE, "platformMockLibrary", JniPlatform.of("linux", "x86_64", JniPlatform.GNU));
+        Assert.assertEquals("linux-x86_64", entry.getPlatform());
+        Assert.assertEquals(8L, entry.getSize());
+        Assert.assertNull(manifest.find(RESOURCE_PACKAGE, "platformMockLibrary", null));
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        manifest.write(written);
+        ByteArrayOutputStream rewritten = new ByteArrayOutputStream();
+        JniLibraryManifest.read(new ByteArrayInputStream(written.toByteArray())).write(rewritten);
+        Assert.assertArrayEquals(written.toByteArray(), rewritten.toByteArray());
+    }
+
+    @Test
+    public void cachedEntryIsNotRead() throws Exception {
+        CachedJniRepository jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        File libraryFile = new File(jniRepository.store(RESOURCE_PACKAGE, "plainMockLibrary").getLibraryPath());
+        Assert.assertEquals("plain", Files.toString(libraryFile, StandardCharsets.UTF_8));
+        jniRepository.close();
+
+        // same size, so the entry is valid for the index without reading it
+        Files.write("PLAIN", libraryFile, StandardCharsets.UTF_8);
+        jniRepository = new CachedJniRepository(cacheDirectory, new IdleJniLibraryLoader());
+        Assert.assertEquals(libraryFile.getAbsolutePath(), jniRepository.store(RESOURCE_PACKAGE, "plainMockLibrary").getLibraryPath());
+        Assert.assertEquals("PLAIN", Files.toString(libraryFile, StandardCharsets.UTF_8));
+        jniRepository.close();
+    }
+
+    @Test
+    public void storeAllIndexed() throws Exception {
+        // not indexed, so it is not found by the store of the package
+        Files.write("unindexed", new File(packageDirectory, "unindexedMockLibrary"), StandardCharsets.UTF_8);
+        TempDirJniRepository jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        jniRepository.setPlatform(JniPlatform.of("linux", "x86_64", JniPlatform.GNU));
+        Set<String> names = new HashSet<>();
+        for (JniLibrary jniLibrary : jniRepository.storeAll(RESOURCE_PACKAGE)) {
+            names.add(Files.toString(new File(jniLibrary.getLibraryPath()), StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("plain", "platform")), names);
+        jniRepository.close();
+    }
+
+    @Test
+    public void indexOfEveryClassLoaderIsReadOnce() throws Exception {
+        IndexCountingClassLoader first = new IndexCountingClassLoader(classesDirectory, contextClassLoader);
+        IndexCountingClassLoader second = new IndexCountingClassLoader(classesDirectory, contextClassLoader);
+        TempDirJniRepository jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        for (ClassLoader classLoader : Arrays.asList(first, second, first, second)) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            jniRepository.storeAll(RESOURCE_PACKAGE);
+        }
+        Assert.assertEquals(1, first.indexReads);
+        Assert.assertEquals(1, second.indexReads);
+        jniRepository.close();
+    }
+
+    private static class IndexCountingClassLoader extends URLClassLoader {
+
+        private int indexReads;
+
+        private IndexCountingClassLoader(File classesDirectory, ClassLoader parent) throws IOException {
+            super(new URL[]{classesDirectory.toURI().toURL()}, parent);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            if (JniLibraryManifest.LOCATION.equals(name)) {
+                indexReads++;
+            }
+            return super.getResources(name);
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
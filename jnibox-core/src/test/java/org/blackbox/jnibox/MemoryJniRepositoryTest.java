@@ -0,0 +1,51 @@
+package org.blackbox.jnibox;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class MemoryJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    @Test
+    public void findMemoryDirectories() {
+        // docker mounts /dev/shm with noexec
+        Assert.assertEquals(Arrays.asList("/tmp", "/tmp/app"), MemoryJniRepository.findMemoryDirectories(Arrays.asList(
+                "/dev/vda / ext4 rw,relatime 0 0",
+                "shm /dev/shm tmpfs rw,nosuid,nodev,noexec,relatime,size=65536k 0 0",
+                "tmpfs /tmp tmpfs rw,nosuid,nodev 0 0",
+                "/dev/vdb /var/tmp ext4 rw,relatime 0 0"),
+                Arrays.asList("/dev/shm", "/tmp", "/tmp/app", "/var/tmp", "/var/tmp2")));
+    }
+
+    @Test
+    public void storeInMemory() throws Exception {
+        Assume.assumeTrue(MemoryJniRepository.isSupported());
+        MemoryJniRepository jniRepository = new MemoryJniRepository(new IdleJniLibraryLoader());
+        File libraryFile = new File(jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME).getLibraryPath());
+        Assert.assertTrue(libraryFile.isFile());
+        Assert.assertEquals(1, MemoryJniRepository.findMemoryDirectories(
+                Files.readAllLines(Paths.get("/proc/self/mounts"), StandardCharsets.UTF_8),
+                Collections.singletonList(libraryFile.getCanonicalPath())).size());
+
+        jniRepository.close();
+        Assert.assertFalse(new File(jniRepository.getRepositoryDirectory()).exists());
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class PlatformJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.platform";
+    private static final String RESOURCE_NAME = "platformMockLibrary";
+
+    private TempDirJniRepository jniRepository;
+
+    @Before
+    public void setup() {
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() throws JniRepositoryException {
+        jniRepository.close();
+    }
+
+    @Test
+    public void bestPlatformVariant() throws Exception {
+        Assert.assertEquals("linux-x86_64", storedContent(JniPlatform.of("linux", "x86_64", JniPlatform.GNU)));
+        Assert.assertEquals("linux-x86_64-musl", storedContent(JniPlatform.of("linux", "x86_64", JniPlatform.MUSL)));
+        Assert.assertEquals("linux-aarch64", storedContent(JniPlatform.of("linux", "aarch64", JniPlatform.GNU)));
+    }
+
+    @Test
+    public void noPlatformVariant() throws Exception {
+        jniRepository.setPlatform(JniPlatform.of("osx", "aarch64", null));
+        try {
+            jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+            Assert.fail();
+        } catch (JniRepositoryException e) {
+            // expected
+        }
+        JniLibrary generic = jniRepository.store(RESOURCE_PACKAGE, "genericMockLibrary");
+        Assert.assertEquals("generic", Files.toString(new File(generic.getLibraryPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void storeAllPlatform() throws Exception {
+        jniRepository.setPlatform(JniPlatform.of("linux", "x86_64", JniPlatform.MUSL));
+        Set<String> names = new HashSet<>();
+        for (JniLibrary jniLibrary : jniRepository.storeAll(RESOURCE_PACKAGE)) {
+            names.add(jniLibrary.getLibraryName());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(RESOURCE_NAME, "genericMockLibrary")), names);
+    }
+
+    @Test
+    public void detectMusl() {
+        // a glibc JVM with the musl package installed does not map its linker
+        Assert.assertFalse(JniPlatform.isMusl(Stream.of(
+                "7f1c2a000000-7f1c2a028000 r--p 00000000 08:01 1835 /usr/lib/x86_64-linux-gnu/libc.so.6",
+                "7f1c2a200000-7f1c2a202000 r--p 00000000 08:01 1830 /usr/lib/x86_64-linux-gnu/ld-linux-x86-64.so.2",
+                "7ffd4b3a0000-7ffd4b3c1000 rw-p 00000000 00:00 0 [stack]")));
+        Assert.assertTrue(JniPlatform.isMusl(Stream.of(
+                "7f3e1c000000-7f3e1c014000 r--p 00000000 00:2f 1234 /lib/ld-musl-x86_64.so.1",
+                "7ffd4b3a0000-7ffd4b3c1000 rw-p 00000000 00:00 0 [stack]")));
+    }
+
+    @Test
+    public void currentPlatform() {
+        JniPlatform current = JniPlatform.current();
+        Assert.assertTrue(current.getDirectories().get(0).startsWith(current.getOs() + '-' + current.getArch()));
+    }
+
+    @Test
+    public void platformIndexOfEveryClassLoader() throws Exception {
+        File firstDirectory = Files.createTempDir();
+        File secondDirectory = Files.createTempDir();
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            write(new File(firstDirectory, "org/blackbox/jnibox/test/loaders/linux-x86_64/firstMockLibrary"), "first");
+            write(new File(secondDirectory, "org/blackbox/jnibox/test/loaders/linux-x86_64/secondMockLibrary"), "second");
+            jniRepository.setPlatform(JniPlatform.of("linux", "x86_64", JniPlatform.GNU));
+
+            // the same package in two class loaders, each one with its own platform variants
+            Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{firstDirectory.toURI().toURL()}, contextClassLoader));
+            JniLibrary first = jniRepository.store("org.blackbox.jnibox.test.loaders", "firstMockLibrary");
+            Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{secondDirectory.toURI().toURL()}, contextClassLoader));
+            JniLibrary second = jniRepository.store("org.blackbox.jnibox.test.loaders", "secondMockLibrary");
+
+            Assert.assertEquals("first", Files.toString(new File(first.getLibraryPath()), StandardCharsets.UTF_8));
+            Assert.assertEquals("second", Files.toString(new File(second.getLibraryPath()), StandardCharsets.UTF_8));
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            FileUtils.deleteDirectory(firstDirectory);
+            FileUtils.deleteDirectory(secondDirectory);
+        }
+    }
+
+    private static String storedContent(JniPlatform platform) throws JniRepositoryException, IOException {
+        TempDirJniRepository platformRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        try {
+            platformRepository.setPlatform(platform);
+            JniLibrary jniLibrary = platformRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+            return Files.toString(new File(jniLibrary.getLibraryPath()), StandardCharsets.UTF_8);
+        } finally {
+            platformRepository.close();
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(content, file, StandardCharsets.UTF_8);
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.blackbox.jnibox;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class QuotaJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+
+    private TempDirJniRepository jniRepository;
+
+    @Before
+    public void setup() {
+        jniRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+    }
+
+    @After
+    public void tearDown() throws JniRepositoryException {
+        jniRepository.close();
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() throws Exception {
+        JniRepositoryStatistics statistics = jniRepository.enableStatistics();
+        jniRepository.setQuota(Long.MAX_VALUE, 2);
+        JniLibrary first = jniRepository.store(RESOURCE_PACKAGE, "firstMockLibrary");
+        JniLibrary second = jniRepository.store(RESOURCE_PACKAGE, "secondMockLibrary");
+        File firstFile = new File(first.getLibraryPath());
+
+        // the first library is the least recently stored, it makes room for the third one
+        JniLibrary third = jniRepository.store(RESOURCE_PACKAGE, "thirdMockLibrary");
+        Assert.assertEquals(JniLibrary.Status.DECLARED, first.getStatus());
+        Assert.assertFalse(firstFile.exists());
+        Assert.assertEquals(JniLibrary.Status.STORED, second.getStatus());
+        Assert.assertEquals(JniLibrary.Status.STORED, third.getStatus());
+        Assert.assertEquals(1L, statistics.getEvictions());
+        Assert.assertEquals(21L, statistics.getEvictedBytes());
+
+        // an evicted library is stored again on its loading, and evicts the next one
+        jniRepository.load(RESOURCE_PACKAGE, "firstMockLibrary");
+        Assert.assertEquals(JniLibrary.Status.LOADED, first.getStatus());
+        Assert.assertTrue(firstFile.isFile());
+        Assert.assertEquals(JniLibrary.Status.DECLARED, second.getStatus());
+        Assert.assertEquals(2L, statistics.getEvictions());
+    }
+
+    @Test
+    public void loadedLibrariesAreNotEvicted() throws Exception {
+        jniRepository.setQuota(1L, 1);
+        JniLibrary first = jniRepository.storeAndLoad(RESOURCE_PACKAGE, "firstMockLibrary");
+        JniLibrary second = jniRepository.store(RESOURCE_PACKAGE, "secondMockLibrary");
+        Assert.assertEquals(JniLibrary.Status.LOADED, first.getStatus());
+        Assert.assertEquals(JniLibrary.Status.STORED, second.getStatus());
+
+        // the third library only evicts the second one
+        JniLibrary third = jniRepository.storeAndLoad(RESOURCE_PACKAGE, "thirdMockLibrary");
+        Assert.assertEquals(JniLibrary.Status.LOADED, first.getStatus());
+        Assert.assertEquals(JniLibrary.Status.DECLARED, second.getStatus());
+        Assert.assertEquals(JniLibrary.Status.LOADED, third.getStatus());
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
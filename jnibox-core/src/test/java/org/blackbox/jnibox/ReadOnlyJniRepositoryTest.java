@@ -0,0 +1,85 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ReadOnlyJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.readonly";
+
+    private File repositoryDirectory;
+    private File packageDirectory;
+
+    @Before
+    public void setup() throws IOException {
+        repositoryDirectory = Files.createTempDir();
+        packageDirectory = new File(repositoryDirectory, RESOURCE_PACKAGE.replace('.', '/'));
+        packageDirectory.mkdirs();
+        Files.write("first", new File(packageDirectory, "firstMockLibrary"), StandardCharsets.UTF_8);
+        Files.write("second", new File(packageDirectory, "secondMockLibrary"), StandardCharsets.UTF_8);
+        JniLibraryManifest.scan(repositoryDirectory, Collections.singleton(RESOURCE_PACKAGE))
+                .write(new File(repositoryDirectory, JniLibraryManifest.LOCATION));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(repositoryDirectory);
+    }
+
+    @Test
+    public void storeExtracted() throws Exception {
+        ReadOnlyJniRepository jniRepository = new ReadOnlyJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        File libraryFile = new File(packageDirectory, "firstMockLibrary");
+        JniLibrary jniLibrary = jniRepository.storeAndLoad(RESOURCE_PACKAGE, "firstMockLibrary");
+        Assert.assertEquals(libraryFile.getAbsolutePath(), jniLibrary.getLibraryPath());
+        Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+        jniRepository.close();
+        Assert.assertTrue(libraryFile.isFile());
+    }
+
+    @Test
+    public void storeAllIndexed() throws Exception {
+        // not indexed, so it is not found by the store of the package
+        Files.write("unindexed", new File(packageDirectory, "unindexedMockLibrary"), StandardCharsets.UTF_8);
+        ReadOnlyJniRepository jniRepository = new ReadOnlyJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        Set<String> names = new HashSet<>();
+        for (JniLibrary jniLibrary : jniRepository.storeAll(RESOURCE_PACKAGE)) {
+            names.add(jniLibrary.getLibraryName());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("firstMockLibrary", "secondMockLibrary")), names);
+        jniRepository.close();
+    }
+
+    @Test(expected = JniRepositoryException.class)
+    public void missingLibrary() throws Exception {
+        ReadOnlyJniRepository jniRepository = new ReadOnlyJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        jniRepository.store(RESOURCE_PACKAGE, "missingMockLibrary");
+    }
+
+    @Test(expected = JniRepositoryException.class)
+    public void truncatedLibrary() throws Exception {
+        Files.write("sec", new File(packageDirectory, "secondMockLibrary"), StandardCharsets.UTF_8);
+        ReadOnlyJniRepository jniRepository = new ReadOnlyJniRepository(repositoryDirectory, new IdleJniLibraryLoader());
+        jniRepository.store(RESOURCE_PACKAGE, "secondMockLibrary");
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class SharedJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private File sharedDirectory;
+
+    @Before
+    public void setup() {
+        sharedDirectory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(sharedDirectory);
+    }
+
+    @Test
+    public void shareBetweenRepositories() throws Exception {
+        JniRepository first = new SharedJniRepository(sharedDirectory, new IdleJniLibraryLoader());
+        JniRepository second = new SharedJniRepository(sharedDirectory, new IdleJniLibraryLoader());
+
+        File libraryFile = new File(first.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME).getLibraryPath());
+        Assert.assertTrue(libraryFile.setLastModified(0L));
+        Assert.assertEquals(libraryFile.getAbsolutePath(), second.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME).getLibraryPath());
+        Assert.assertEquals(0L, libraryFile.lastModified());
+        Assert.assertEquals(2, new File(libraryFile.getParentFile(), ".refs").list().length);
+
+        first.close();
+        Assert.assertTrue(libraryFile.isFile());
+        second.close();
+        Assert.assertFalse(libraryFile.exists());
+        Assert.assertTrue(new File(libraryFile.getParentFile(), ".lock").isFile());
+    }
+
+    @Test
+    public void sweepDeadReferences() throws Exception {
+        SharedJniRepository jniRepository = new SharedJniRepository(sharedDirectory, new IdleJniLibraryLoader());
+        File libraryFile = new File(jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME).getLibraryPath());
+
+        // a process that crashed leaves its reference and an unlocked lease
+        File deadLease = new File(new File(sharedDirectory, ".leases"), "dead");
+        Assert.assertTrue(deadLease.createNewFile());
+        Assert.assertTrue(new File(new File(libraryFile.getParentFile(), ".refs"), "dead").createNewFile());
+
+        jniRepository.sweep();
+        Assert.assertTrue(libraryFile.isFile());
+        Assert.assertFalse(deadLease.exists());
+        Assert.assertFalse(new File(new File(libraryFile.getParentFile(), ".refs"), "dead").exists());
+
+        jniRepository.close();
+        Assert.assertFalse(libraryFile.exists());
+        Assert.assertEquals(0, new File(sharedDirectory, ".leases").list().length);
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class StartupProfileJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+
+    private File directory;
+    private File profileFile;
+
+    @Before
+    public void setup() {
+        directory = Files.createTempDir();
+        profileFile = new File(directory, "jnibox.profile");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void recordAndReplay() throws Exception {
+        ConfigurableJniRepository firstRepository = repository("first");
+        firstRepository.enableStartupProfile(profileFile);
+        firstRepository.storeAndLoad(RESOURCE_PACKAGE, "secondMockLibrary");
+        firstRepository.store(RESOURCE_PACKAGE, "firstMockLibrary");
+        firstRepository.close();
+
+        List<String> lines = FileUtils.readLines(profileFile, StandardCharsets.UTF_8);
+        Assert.assertEquals(3, lines.size());
+        Assert.assertTrue(lines.get(1).startsWith(RESOURCE_PACKAGE + "\tsecondMockLibrary\t"));
+        Assert.assertFalse(lines.get(1).endsWith("\t-"));
+        Assert.assertTrue(lines.get(2).startsWith(RESOURCE_PACKAGE + "\tfirstMockLibrary\t"));
+        Assert.assertTrue(lines.get(2).endsWith("\t-"));
+
+        // the next boot stores the libraries of the profile before the application asks for them
+        ConfigurableJniRepository secondRepository = repository("second");
+        secondRepository.enableStartupProfile(profileFile);
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (!(isStored(secondRepository, "secondMockLibrary") && isStored(secondRepository, "firstMockLibrary"))) {
+            Assert.assertTrue("The profile was not replayed", System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(2, secondRepository.size());
+
+        // the replay is not recorded, the libraries that the application does not use leave the profile
+        secondRepository.storeAndLoad(RESOURCE_PACKAGE, "secondMockLibrary");
+        secondRepository.close();
+        lines = FileUtils.readLines(profileFile, StandardCharsets.UTF_8);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(1).startsWith(RESOURCE_PACKAGE + "\tsecondMockLibrary\t"));
+    }
+
+    @Test
+    public void replayIgnoresMissingLibraries() throws Exception {
+        FileUtils.writeStringToFile(profileFile, "# jnibox profile 1\n"
+                + RESOURCE_PACKAGE + "\tmissingMockLibrary\t0\t-\n", StandardCharsets.UTF_8);
+        ConfigurableJniRepository jniRepository = repository("missing");
+        jniRepository.enableStartupProfile(profileFile);
+        jniRepository.storeAndLoad(RESOURCE_PACKAGE, "firstMockLibrary");
+        jniRepository.close();
+        Assert.assertFalse(FileUtils.readFileToString(profileFile, StandardCharsets.UTF_8).contains("missingMockLibrary"));
+    }
+
+    private ConfigurableJniRepository repository(String name) {
+        return new ConfigurableJniRepository(new File(directory, name), new IdleJniLibraryLoader());
+    }
+
+    private static boolean isStored(JniRepository jniRepository, String libraryName) {
+        return jniRepository.declare(RESOURCE_PACKAGE, libraryName).getStatus() == JniLibrary.Status.STORED;
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
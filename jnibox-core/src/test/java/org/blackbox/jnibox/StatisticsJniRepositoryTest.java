@@ -0,0 +1,99 @@
+package org.blackbox.jnibox;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatisticsJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test";
+    private static final String RESOURCE_NAME = "someMockLibrary.so";
+
+    private TempDirJniRepository jniRepository;
+    private boolean failLoading;
+
+    @Before
+    public void setup() {
+        jniRepository = new TempDirJniRepository(libraryPath -> {
+            if (failLoading) {
+                throw new UnsatisfiedLinkError(libraryPath);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws JniRepositoryException {
+        jniRepository.close();
+    }
+
+    @Test
+    public void statisticsMXBean() throws Exception {
+        JniRepositoryStatistics statistics = jniRepository.enableStatistics();
+        Assert.assertSame(statistics, jniRepository.enableStatistics());
+        JniLibrary jniLibrary = jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+        long length = new File(jniLibrary.getLibraryPath()).length();
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = statistics.getObjectName();
+        Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "StoredLibraries"));
+        Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "LoadedLibraries"));
+        Assert.assertEquals(length, mBeanServer.getAttribute(objectName, "BytesExtracted"));
+        Assert.assertEquals(length, mBeanServer.getAttribute(objectName, "DiskFootprint"));
+        Assert.assertEquals(1L, ((CompositeData) mBeanServer.getAttribute(objectName, "LoadLatency")).get("count"));
+
+        TabularData libraries = (TabularData) mBeanServer.getAttribute(objectName, "Libraries");
+        CompositeData library = (CompositeData) libraries.get(new Object[]{RESOURCE_PACKAGE + '/' + RESOURCE_NAME}).get("value");
+        Assert.assertEquals("LOADED", library.get("status"));
+        Assert.assertEquals(2L, library.get("statusTransitions"));
+        Assert.assertEquals(length, library.get("bytesExtracted"));
+
+        jniRepository.close();
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+        Assert.assertNull(jniRepository.getStatistics());
+    }
+
+    @Test
+    public void loadFailure() throws Exception {
+        JniRepositoryStatistics statistics = jniRepository.enableStatistics();
+        failLoading = true;
+        try {
+            jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+            Assert.fail();
+        } catch (JniRepositoryException e) {
+            // expected
+        }
+
+        JniLibraryStatistics library = statistics.getLibrary(new JniLibraryId(RESOURCE_PACKAGE, RESOURCE_NAME));
+        Assert.assertEquals("STORED", library.getStatus());
+        Assert.assertEquals(1L, library.getLoadFailures());
+        Assert.assertNotNull(library.getLastFailure());
+        Assert.assertEquals(1L, statistics.getLoadFailures());
+        Assert.assertEquals(0L, statistics.getLoadLatency().getCount());
+    }
+
+    @Test
+    public void listenerFailureIsIgnored() throws Exception {
+        List<String> events = new ArrayList<>();
+        jniRepository.addListener(new JniRepositoryListener() {
+            @Override
+            public void statusChanged(JniLibrary library, JniLibrary.Status previous, JniLibrary.Status current) {
+                events.add(previous + "->" + current);
+                throw new IllegalStateException();
+            }
+        });
+
+        JniLibrary jniLibrary = jniRepository.storeAndLoad(RESOURCE_PACKAGE, RESOURCE_NAME);
+        Assert.assertEquals(JniLibrary.Status.LOADED, jniLibrary.getStatus());
+        Assert.assertEquals("[DECLARED->STORED, STORED->LOADED]", events.toString());
+    }
+}
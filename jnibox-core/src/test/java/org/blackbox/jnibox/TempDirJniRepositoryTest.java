@@ -1,11 +1,24 @@
 package org.blackbox.jnibox;
 
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by guillermoblascojimenez on 28/12/14.
@@ -54,11 +67,109 @@ public class TempDirJniRepositoryTest {
         jniRepository.store("org.mycompany.myproject", "mylib.so");
     }
 
+    @Test
+    public void testNotFoundFileIsReleased() throws JniRepositoryException {
+        try {
+            jniRepository.store(RESOURCE_PACKAGE, "mylib.so");
+            Assert.fail();
+        } catch (JniRepositoryException e) {
+            Assert.assertEquals(jniRepository.size(), 0);
+        }
+        try {
+            jniRepository.load(RESOURCE_PACKAGE, "mylib.so");
+            Assert.fail();
+        } catch (JniLibraryNotFoundException e) {
+            // the failed library is not kept in the repository
+        }
+    }
+
     @Test(expected = JniLibraryNotFoundException.class)
     public void testNotFoundInRepo() throws JniRepositoryException {
         jniRepository.load("org.mycompany.myproject", "mylib.so");
     }
 
+    @Test
+    public void closeAsync() throws Exception {
+        jniLibrary = jniRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+        File repositoryDirectory = new File(jniRepository.getRepositoryDirectory());
+
+        CompletableFuture<Void> closing = jniRepository.closeAsync();
+        Assert.assertEquals(0, jniRepository.size());
+        closing.get(10, TimeUnit.SECONDS);
+        Assert.assertFalse(repositoryDirectory.exists());
+    }
+
+    @Test
+    public void cleanUnreachable() throws Exception {
+        File repositoryDirectory = storeInUnreachableRepository();
+        for (int i = 0; i < 100 && repositoryDirectory.exists(); i++) {
+            System.gc();
+            Thread.sleep(50L);
+        }
+        Assert.assertFalse(repositoryDirectory.exists());
+    }
+
+    private static File storeInUnreachableRepository() throws JniRepositoryException {
+        JniRepository unreachableRepository = new TempDirJniRepository(new IdleJniLibraryLoader());
+        unreachableRepository.store(RESOURCE_PACKAGE, RESOURCE_NAME);
+        return new File(unreachableRepository.getRepositoryDirectory());
+    }
+
+    @Test
+    public void reapOrphanedDirectories() throws Exception {
+        File parentDirectory = Files.createTempDir();
+        try {
+            // the pid and host of the name do not matter, only the lock of the owner file
+            File orphanedDirectory = new File(parentDirectory, "1@host-jniRepository-1");
+            new File(orphanedDirectory, "org/company").mkdirs();
+            new File(orphanedDirectory, ".owner").createNewFile();
+            File unownedDirectory = new File(parentDirectory, "2@host-jniRepository-1");
+            unownedDirectory.mkdirs();
+            File ownedDirectory = TempDirJniRepository.createRepositoryDir(parentDirectory);
+            File liveDirectory = new File(parentDirectory, "1@host-jniRepository-2");
+            liveDirectory.mkdirs();
+            Process owner = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"), OwnerProcess.class.getName(),
+                    new File(liveDirectory, ".owner").getPath()).start();
+            try {
+                // the owner process prints a line once it holds the lock
+                Assert.assertTrue(new BufferedReader(new InputStreamReader(owner.getInputStream(), StandardCharsets.UTF_8))
+                        .readLine().startsWith("locked"));
+
+                Assert.assertEquals(Collections.singletonList(orphanedDirectory),
+                        TempDirJniRepository.reapOrphanedDirectories(parentDirectory));
+                Assert.assertFalse(orphanedDirectory.exists());
+                Assert.assertTrue(unownedDirectory.exists());
+                Assert.assertTrue(ownedDirectory.exists());
+                Assert.assertTrue(liveDirectory.exists());
+            } finally {
+                owner.destroy();
+                owner.waitFor();
+            }
+            TempDirJniRepository.releaseOwner(ownedDirectory);
+            Assert.assertEquals(new HashSet<>(Arrays.asList(liveDirectory, ownedDirectory)),
+                    new HashSet<>(TempDirJniRepository.reapOrphanedDirectories(parentDirectory)));
+        } finally {
+            FileUtils.deleteDirectory(parentDirectory);
+        }
+        Assert.assertTrue(new File(jniRepository.getRepositoryDirectory()).exists());
+    }
+
+    /**
+     * Holds the lock of the owner file given as argument until it is destroyed.
+     */
+    public static final class OwnerProcess {
+
+        public static void main(String[] args) throws Exception {
+            try (FileChannel channel = FileChannel.open(Paths.get(args[0]), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.lock();
+                System.out.println("locked");
+                System.out.flush();
+                Thread.sleep(Long.MAX_VALUE);
+            }
+        }
+    }
+
     private static class IdleJniLibraryLoader implements JniLibraryLoader {
 
         @Override
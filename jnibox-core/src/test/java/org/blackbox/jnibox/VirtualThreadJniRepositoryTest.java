@@ -0,0 +1,103 @@
+package org.blackbox.jnibox;
+
+import com.google.common.io.Files;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class VirtualThreadJniRepositoryTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.test.bulk";
+    private static final String[] RESOURCE_NAMES = {"firstMockLibrary", "secondMockLibrary", "thirdMockLibrary"};
+
+    private File sharedDirectory;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(AbstractJniRepository.isVirtualThreadSupported());
+        sharedDirectory = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (sharedDirectory != null) {
+            FileUtils.deleteDirectory(sharedDirectory);
+        }
+    }
+
+    @Test
+    public void noPinning() throws Exception {
+        List<RecordedEvent> pinned = new ArrayList<>();
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            for (int i = 0; i < 10; i++) {
+                useRepository(new TempDirJniRepository(new IdleJniLibraryLoader()));
+                useRepository(new SharedJniRepository(sharedDirectory, new IdleJniLibraryLoader()));
+            }
+            recording.stop();
+            for (RecordedEvent event : read(recording)) {
+                if (event.getStackTrace() != null && inJnibox(event)) {
+                    pinned.add(event);
+                }
+            }
+        }
+        Assert.assertEquals(pinned.toString(), 0, pinned.size());
+    }
+
+    private static void useRepository(AbstractJniRepository jniRepository) throws Exception {
+        jniRepository.setVirtualThreadExecutor();
+        jniRepository.setQuota(Long.MAX_VALUE, 2);
+        List<CompletableFuture<JniLibrary>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            for (String resourceName : RESOURCE_NAMES) {
+                futures.add(jniRepository.storeAndLoadAsync(RESOURCE_PACKAGE, resourceName));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        jniRepository.storeAll(RESOURCE_PACKAGE);
+        jniRepository.closeAsync().join();
+    }
+
+    private static boolean inJnibox(RecordedEvent event) {
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith("org.blackbox.jnibox.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws Exception {
+        Path file = java.nio.file.Files.createTempFile("jnibox", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}
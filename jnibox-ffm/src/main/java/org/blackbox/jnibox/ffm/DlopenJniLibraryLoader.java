@@ -0,0 +1,146 @@
+package org.blackbox.jnibox.ffm;
+
+import com.google.common.base.Preconditions;
+import org.blackbox.jnibox.JniLibraryLoader;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.util.Locale;
+
+/**
+ * Linux loader that opens the libraries with dlopen and the given flags before registering them
+ * with System.load, through the Foreign Function and Memory API:
+ *
+ *  - LAZY binding resolves the functions of the library on their first call, instead of all of
+ *  them when it is opened (NOW), which shortens the loading of big libraries.
+ *
+ *  - GLOBAL visibility makes the symbols of the library available to the libraries opened later,
+ *  as some dependent libraries need.
+ *
+ * The flags of the first dlopen of a library are the ones that apply: the JVM opens it again in
+ * System.load, which gets the same handle and registers the library in the class loader, so its
+ * JNI native methods are resolved and its JNI_OnLoad is called as usual. The library is never
+ * closed, like the libraries of System.load.
+ *
+ * The JVM should be started with --enable-native-access=ALL-UNNAMED (or the module of this
+ * class), otherwise it warns on the first loading.
+ */
+public final class DlopenJniLibraryLoader implements JniLibraryLoader {
+
+    /**
+     * Binding of the functions of the library.
+     */
+    public enum Binding {
+        LAZY(0x00001),
+        NOW(0x00002);
+
+        private final int flag;
+
+        Binding(int flag) {
+            this.flag = flag;
+        }
+    }
+
+    /**
+     * Visibility of the symbols of the library to the libraries opened later.
+     */
+    public enum Visibility {
+        LOCAL(0x00000),
+        GLOBAL(0x00100);
+
+        private final int flag;
+
+        Visibility(int flag) {
+            this.flag = flag;
+        }
+    }
+
+    private final Binding binding;
+    private final Visibility visibility;
+
+    public DlopenJniLibraryLoader(Binding binding, Visibility visibility) {
+        Preconditions.checkNotNull(binding);
+        Preconditions.checkNotNull(visibility);
+        Preconditions.checkState(isSupported(), "dlopen flags are only supported on Linux");
+        this.binding = binding;
+        this.visibility = visibility;
+    }
+
+    /**
+     * Returns true if the loader is supported in this JVM, that is, on Linux.
+     *
+     * @return True if the loader is supported.
+     */
+    public static boolean isSupported() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux");
+    }
+
+    public Binding getBinding() {
+        return binding;
+    }
+
+    public Visibility getVisibility() {
+        return visibility;
+    }
+
+    @Override
+    public void load(String libraryPath) {
+        Preconditions.checkNotNull(libraryPath);
+        MemorySegment handle;
+        try (Arena arena = Arena.ofConfined()) {
+            handle = (MemorySegment) Dl.DLOPEN.invokeExact(arena.allocateFrom(libraryPath), binding.flag | visibility.flag);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+        if (handle.equals(MemorySegment.NULL)) {
+            throw new UnsatisfiedLinkError("Can't load library: " + libraryPath + " (" + dlerror() + ')');
+        }
+        System.load(libraryPath);
+    }
+
+    private static String dlerror() {
+        MemorySegment error;
+        try {
+            error = (MemorySegment) Dl.DLERROR.invokeExact();
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+        return error.equals(MemorySegment.NULL) ? "unknown dlopen error" : error.reinterpret(Long.MAX_VALUE).getString(0L);
+    }
+
+    private static RuntimeException propagate(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    @Override
+    public String toString() {
+        return "DlopenJniLibraryLoader(" + binding + ", " + visibility + ')';
+    }
+
+    /**
+     * Downcall handles of dlopen and dlerror, linked on the first loading.
+     */
+    private static final class Dl {
+
+        private static final MethodHandle DLOPEN;
+        private static final MethodHandle DLERROR;
+
+        static {
+            Linker linker = Linker.nativeLinker();
+            DLOPEN = linker.downcallHandle(linker.defaultLookup().find("dlopen").orElseThrow(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+            DLERROR = linker.downcallHandle(linker.defaultLookup().find("dlerror").orElseThrow(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.blackbox.jnibox.ffm;
+
+import com.google.common.base.Preconditions;
+import org.blackbox.jnibox.JniLibrary;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Symbols of a loaded library, to call its C functions with downcall handles of the Foreign
+ * Function and Memory API instead of JNI native methods. The downcall handles are linked once per
+ * symbol, descriptor and options, and reused by every caller.
+ *
+ * There is one instance per library file, it is never released: the library is opened again by
+ * the lookup in the global arena, and a loaded library is never unloaded anyway. For the fastest
+ * calls the handles should be kept in static final fields, so the JIT can inline them.
+ */
+public final class JniLibrarySymbols {
+
+    private static final ConcurrentMap<String, JniLibrarySymbols> SYMBOLS = new ConcurrentHashMap<>();
+
+    private final String libraryPath;
+    private final SymbolLookup symbolLookup;
+    private final ConcurrentMap<DowncallKey, MethodHandle> downcallHandles = new ConcurrentHashMap<>();
+
+    private JniLibrarySymbols(String libraryPath) {
+        this.libraryPath = libraryPath;
+        this.symbolLookup = SymbolLookup.libraryLookup(Path.of(libraryPath), Arena.global());
+    }
+
+    /**
+     * Returns the symbols of the given library.
+     *
+     * @param library The library, it must be loaded.
+     * @return The symbols of the library.
+     */
+    public static JniLibrarySymbols of(JniLibrary library) {
+        Preconditions.checkNotNull(library);
+        Preconditions.checkState(library.getStatus() == JniLibrary.Status.LOADED, "Library " + library + " is not loaded.");
+        return SYMBOLS.computeIfAbsent(library.getLibraryPath(), JniLibrarySymbols::new);
+    }
+
+    /**
+     * Returns the lookup of the symbols of the library.
+     *
+     * @return The lookup of the symbols.
+     */
+    public SymbolLookup getSymbolLookup() {
+        return symbolLookup;
+    }
+
+    /**
+     * Returns the address of a symbol of the library.
+     *
+     * @param symbol Name of the symbol.
+     * @return The address of the symbol.
+     * @throws IllegalArgumentException If the library has no such symbol.
+     */
+    public MemorySegment find(String symbol) {
+        Preconditions.checkNotNull(symbol);
+        return symbolLookup.find(symbol).orElseThrow(
+                () -> new IllegalArgumentException("Symbol " + symbol + " not found in " + libraryPath));
+    }
+
+    /**
+     * Returns the downcall handle of a function of the library, linked on its first request.
+     *
+     * @param symbol Name of the function.
+     * @param descriptor Signature of the function.
+     * @param options Options of the linker, like Linker.Option.critical for short functions.
+     * @return The downcall handle of the function.
+     * @throws IllegalArgumentException If the library has no such symbol.
+     */
+    public MethodHandle downcallHandle(String symbol, FunctionDescriptor descriptor, Linker.Option... options) {
+        Preconditions.checkNotNull(symbol);
+        Preconditions.checkNotNull(descriptor);
+        Preconditions.checkNotNull(options);
+        DowncallKey key = new DowncallKey(symbol, descriptor, Arrays.asList(options));
+        MethodHandle downcallHandle = downcallHandles.get(key);
+        if (downcallHandle == null) {
+            downcallHandle = downcallHandles.computeIfAbsent(key,
+                    created -> Linker.nativeLinker().downcallHandle(find(symbol), descriptor, options));
+        }
+        return downcallHandle;
+    }
+
+    /**
+     * Returns the amount of downcall handles linked for the library.
+     *
+     * @return The amount of downcall handles.
+     */
+    public int size() {
+        return downcallHandles.size();
+    }
+
+    @Override
+    public String toString() {
+        return "JniLibrarySymbols(" + libraryPath + ')';
+    }
+
+    private record DowncallKey(String symbol, FunctionDescriptor descriptor, List<Linker.Option> options) {
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Test library of jnibox-ffm, the same function exported for FFM downcalls and as the JNI
+ * native method NativeMath.add.
+ */
+#include <jni.h>
+
+int jnibox_add(int a, int b) {
+    return a + b;
+}
+
+JNIEXPORT jint JNICALL Java_org_blackbox_jnibox_ffm_NativeMath_add(JNIEnv *env, jclass type, jint a, jint b) {
+    return jnibox_add(a, b);
+}
@@ -0,0 +1,37 @@
+package org.blackbox.jnibox.ffm;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class DlopenJniLibraryLoaderTest {
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(DlopenJniLibraryLoader.isSupported());
+    }
+
+    @Test
+    public void load() {
+        // a library of the JDK, it has no JNI_OnLoad to call again
+        File library = new File(System.getProperty("java.home"), "lib/libzip.so");
+        Assume.assumeTrue(library.isFile());
+        new DlopenJniLibraryLoader(DlopenJniLibraryLoader.Binding.LAZY, DlopenJniLibraryLoader.Visibility.GLOBAL)
+                .load(library.getAbsolutePath());
+    }
+
+    @Test
+    public void loadFailure() {
+        File library = new File(System.getProperty("java.io.tmpdir"), "missing-" + System.nanoTime() + ".so");
+        try {
+            new DlopenJniLibraryLoader(DlopenJniLibraryLoader.Binding.NOW, DlopenJniLibraryLoader.Visibility.LOCAL)
+                    .load(library.getAbsolutePath());
+            Assert.fail();
+        } catch (UnsatisfiedLinkError e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(library.getName()));
+        }
+    }
+}
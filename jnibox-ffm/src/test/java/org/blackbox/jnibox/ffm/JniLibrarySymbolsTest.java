@@ -0,0 +1,69 @@
+package org.blackbox.jnibox.ffm;
+
+import org.blackbox.jnibox.ConfigurableJniRepository;
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniRepositoryException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+
+public class JniLibrarySymbolsTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.ffm.test";
+    private static final String LIBRARY_NAME = "libjniboxffm.so";
+    private static final FunctionDescriptor ADD = FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT);
+
+    private ConfigurableJniRepository jniRepository;
+
+    @Before
+    public void setup() throws IOException {
+        Assume.assumeTrue(DlopenJniLibraryLoader.isSupported());
+        jniRepository = new ConfigurableJniRepository(Files.createTempDirectory("jnibox-ffm").toFile());
+    }
+
+    @After
+    public void tearDown() throws JniRepositoryException {
+        if (jniRepository != null) {
+            jniRepository.close();
+            new File(jniRepository.getRepositoryDirectory()).delete();
+        }
+    }
+
+    @Test
+    public void downcall() throws Throwable {
+        JniLibrary library = jniRepository.storeAndLoad(RESOURCE_PACKAGE, LIBRARY_NAME);
+        JniLibrarySymbols symbols = JniLibrarySymbols.of(library);
+        Assert.assertSame(symbols, JniLibrarySymbols.of(library));
+
+        MethodHandle add = symbols.downcallHandle("jnibox_add", ADD);
+        Assert.assertEquals(5, (int) add.invokeExact(2, 3));
+        Assert.assertSame(add, symbols.downcallHandle("jnibox_add", ADD));
+        MethodHandle criticalAdd = symbols.downcallHandle("jnibox_add", ADD, Linker.Option.critical(false));
+        Assert.assertNotSame(add, criticalAdd);
+        Assert.assertEquals(7, (int) criticalAdd.invokeExact(3, 4));
+        Assert.assertEquals(2, symbols.size());
+
+        // the library is still a JNI library
+        Assert.assertEquals(9, NativeMath.add(4, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSymbol() throws JniRepositoryException {
+        JniLibrarySymbols.of(jniRepository.storeAndLoad(RESOURCE_PACKAGE, LIBRARY_NAME)).downcallHandle("jnibox_missing", ADD);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void notLoaded() {
+        JniLibrarySymbols.of(jniRepository.declare(RESOURCE_PACKAGE, LIBRARY_NAME));
+    }
+}
@@ -0,0 +1,12 @@
+package org.blackbox.jnibox.ffm;
+
+/**
+ * JNI native methods of the test library.
+ */
+final class NativeMath {
+
+    private NativeMath() {
+    }
+
+    static native int add(int a, int b);
+}
@@ -0,0 +1,51 @@
+package org.blackbox.jnibox.maven;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.blackbox.jnibox.JniLibraryManifest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the jnibox index (META-INF/jnibox/index) of the native libraries of the given packages
+ * in the classes directory, so it is packed in the jar. See JniLibraryManifest.
+ */
+@Mojo(name = "index", defaultPhase = LifecyclePhase.PREPARE_PACKAGE, threadSafe = true)
+public class IndexMojo extends AbstractMojo {
+
+    /**
+     * Directory of the resources to pack.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+
+    /**
+     * Packages of the native libraries, like org.company.project.natives
+     */
+    @Parameter(required = true)
+    private List<String> libraryPackages;
+
+    @Parameter(property = "jnibox.index.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping the jnibox index");
+            return;
+        }
+        File indexFile = new File(outputDirectory, JniLibraryManifest.LOCATION);
+        try {
+            JniLibraryManifest manifest = JniLibraryManifest.scan(outputDirectory, libraryPackages);
+            manifest.write(indexFile);
+            getLog().info("Indexed " + manifest.getEntries().size() + " native libraries in " + indexFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write the jnibox index " + indexFile, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.blackbox.jnibox.spring;
+
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Imports JniBoxConfiguration in a @Configuration class: a "jniRepository" bean and the
+ * post-processor of the RequiresJniLibrary annotations.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Import(JniBoxConfiguration.class)
+public @interface EnableJniBox {
+}
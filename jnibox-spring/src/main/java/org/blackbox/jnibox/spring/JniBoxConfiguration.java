@@ -0,0 +1,28 @@
+package org.blackbox.jnibox.spring;
+
+import org.blackbox.jnibox.JniRepository;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the jnibox beans: a TempDirJniRepository named "jniRepository", closed with
+ * the context, and the JniLibraryPostProcessor. Another repository is used defining a bean with
+ * the same name in the configuration that imports this one.
+ */
+@Configuration
+public class JniBoxConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public JniRepository jniRepository() {
+        return new TempDirJniRepository();
+    }
+
+    /**
+     * Static, so the post-processor does not instantiate this configuration early.
+     */
+    @Bean
+    public static JniLibraryPostProcessor jniLibraryPostProcessor() {
+        return new JniLibraryPostProcessor();
+    }
+}
@@ -0,0 +1,208 @@
+package org.blackbox.jnibox.spring;
+
+import com.google.common.base.Preconditions;
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniLibraryId;
+import org.blackbox.jnibox.JniRepository;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores and loads the libraries declared with RequiresJniLibrary in the jni repository bean.
+ *
+ * When the bean factory is post-processed the requirements of the beans are collected, and a
+ * bean post-processor is registered. The repository bean is not created then, so it is created
+ * like any other bean, with its configuration autowired. Once the repository bean is
+ * initialized, the libraries of the eager singletons are stored and loaded asynchronously, all of
+ * them in parallel in the executor of the repository, and the libraries of the lazy and prototype
+ * beans are only declared. Then every bean that requires libraries waits for its own libraries
+ * right before it is instantiated (creating the repository bean first if it does not exist yet),
+ * so the rest of the context is created while the libraries are extracted. The libraries of a
+ * lazy bean are stored and loaded when it is first instantiated.
+ */
+public class JniLibraryPostProcessor implements BeanFactoryPostProcessor {
+
+    /**
+     * Name of the repository bean by default.
+     */
+    public static final String DEFAULT_JNI_REPOSITORY_BEAN_NAME = "jniRepository";
+
+    private String jniRepositoryBeanName = DEFAULT_JNI_REPOSITORY_BEAN_NAME;
+
+    public String getJniRepositoryBeanName() {
+        return jniRepositoryBeanName;
+    }
+
+    /**
+     * Sets the name of the repository bean, "jniRepository" by default.
+     *
+     * @param jniRepositoryBeanName The name of the repository bean.
+     */
+    public void setJniRepositoryBeanName(String jniRepositoryBeanName) {
+        this.jniRepositoryBeanName = Preconditions.checkNotNull(jniRepositoryBeanName);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        Map<String, Set<JniLibraryId>> requirements = new HashMap<>();
+        Set<JniLibraryId> eagerLibraryIds = new LinkedHashSet<>();
+        Set<JniLibraryId> lazyLibraryIds = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
+            if (beanDefinition.isAbstract()) {
+                continue;
+            }
+            Set<JniLibraryId> libraryIds = requiredLibraries(beanFactory, beanName);
+            if (libraryIds.isEmpty()) {
+                continue;
+            }
+            requirements.put(beanName, libraryIds);
+            if (beanDefinition.isSingleton() && !beanDefinition.isLazyInit()) {
+                eagerLibraryIds.addAll(libraryIds);
+            } else {
+                lazyLibraryIds.addAll(libraryIds);
+            }
+        }
+        if (requirements.isEmpty()) {
+            return;
+        }
+        lazyLibraryIds.removeAll(eagerLibraryIds);
+        beanFactory.addBeanPostProcessor(new LibraryAwaitingPostProcessor(
+                beanFactory, jniRepositoryBeanName, requirements, eagerLibraryIds, lazyLibraryIds));
+    }
+
+    /**
+     * The libraries required by the class of the bean and by its @Bean method.
+     */
+    private static Set<JniLibraryId> requiredLibraries(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        Set<JniLibraryId> libraryIds = new LinkedHashSet<>();
+        BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+        if (beanDefinition instanceof AnnotatedBeanDefinition) {
+            MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) beanDefinition).getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                factoryMethod.getAnnotations().stream(RequiresJniLibrary.class)
+                        .forEach(annotation -> addLibraries(libraryIds, annotation.synthesize()));
+                factoryMethod.getAnnotations().stream(RequiresJniLibraries.class)
+                        .forEach(annotation -> {
+                            for (RequiresJniLibrary requiresJniLibrary : annotation.synthesize().value()) {
+                                addLibraries(libraryIds, requiresJniLibrary);
+                            }
+                        });
+            }
+        }
+        Class<?> beanType = beanFactory.getType(beanName, false);
+        if (beanType != null) {
+            for (RequiresJniLibrary requiresJniLibrary : AnnotatedElementUtils.findMergedRepeatableAnnotations(
+                    ClassUtils.getUserClass(beanType), RequiresJniLibrary.class)) {
+                addLibraries(libraryIds, requiresJniLibrary);
+            }
+        }
+        return libraryIds;
+    }
+
+    private static void addLibraries(Set<JniLibraryId> libraryIds, RequiresJniLibrary requiresJniLibrary) {
+        for (String libraryName : requiresJniLibrary.value()) {
+            libraryIds.add(new JniLibraryId(requiresJniLibrary.libraryPackage(), libraryName));
+        }
+    }
+
+    /**
+     * Starts the libraries once the repository bean is initialized, and blocks the instantiation
+     * of every bean until its libraries are loaded.
+     */
+    private static final class LibraryAwaitingPostProcessor implements InstantiationAwareBeanPostProcessor {
+
+        private final BeanFactory beanFactory;
+        private final String jniRepositoryBeanName;
+        private final Map<String, Set<JniLibraryId>> requirements;
+        private final Set<JniLibraryId> eagerLibraryIds;
+        private final Set<JniLibraryId> lazyLibraryIds;
+        private final ConcurrentMap<JniLibraryId, CompletableFuture<JniLibrary>> loadings = new ConcurrentHashMap<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile JniRepository jniRepository;
+
+        private LibraryAwaitingPostProcessor(BeanFactory beanFactory, String jniRepositoryBeanName,
+                                             Map<String, Set<JniLibraryId>> requirements,
+                                             Set<JniLibraryId> eagerLibraryIds, Set<JniLibraryId> lazyLibraryIds) {
+            this.beanFactory = beanFactory;
+            this.jniRepositoryBeanName = jniRepositoryBeanName;
+            this.requirements = requirements;
+            this.eagerLibraryIds = eagerLibraryIds;
+            this.lazyLibraryIds = lazyLibraryIds;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (jniRepositoryBeanName.equals(beanName) && bean instanceof JniRepository) {
+                start((JniRepository) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+            Set<JniLibraryId> libraryIds = requirements.getOrDefault(beanName, Collections.<JniLibraryId>emptySet());
+            if (libraryIds.isEmpty()) {
+                return null;
+            }
+            JniRepository jniRepository = jniRepository();
+            for (JniLibraryId libraryId : libraryIds) {
+                CompletableFuture<JniLibrary> loading = loadings.computeIfAbsent(libraryId, id ->
+                        jniRepository.storeAndLoadAsync(id.getLibraryPackage(), id.getLibraryName()));
+                try {
+                    loading.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BeanCreationException(beanName, "Interrupted while loading the native library " + libraryId, e);
+                } catch (ExecutionException e) {
+                    throw new BeanCreationException(beanName, "Native library " + libraryId + " could not be loaded", e.getCause());
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the repository bean, creating it if it does not exist yet. A repository created
+         * before this post-processor was registered is started here.
+         */
+        private JniRepository jniRepository() {
+            JniRepository jniRepository = this.jniRepository;
+            if (jniRepository == null) {
+                jniRepository = beanFactory.getBean(jniRepositoryBeanName, JniRepository.class);
+                start(jniRepository);
+            }
+            return jniRepository;
+        }
+
+        private void start(JniRepository jniRepository) {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            for (JniLibraryId libraryId : eagerLibraryIds) {
+                loadings.computeIfAbsent(libraryId, id -> jniRepository.storeAndLoadAsync(id.getLibraryPackage(), id.getLibraryName()));
+            }
+            jniRepository.declareAll(lazyLibraryIds);
+            this.jniRepository = jniRepository;
+        }
+    }
+}
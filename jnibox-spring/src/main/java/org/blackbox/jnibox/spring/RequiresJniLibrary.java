@@ -0,0 +1,37 @@
+package org.blackbox.jnibox.spring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the native libraries that a bean needs, on its class or on its @Bean method. The
+ * JniLibraryPostProcessor stores and loads them before the bean is instantiated: the libraries
+ * of the eager singletons are started in parallel when the context is refreshed, and the ones of
+ * the lazy and prototype beans when the bean is first instantiated.
+ *
+ * Libraries of several packages are declared repeating the annotation.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Repeatable(RequiresJniLibraries.class)
+public @interface RequiresJniLibrary {
+
+    /**
+     * Package of the libraries.
+     *
+     * @return The package of the libraries.
+     */
+    String libraryPackage();
+
+    /**
+     * Names of the libraries in the package.
+     *
+     * @return The names of the libraries.
+     */
+    String[] value();
+}
@@ -0,0 +1,120 @@
+package org.blackbox.jnibox.spring;
+
+import org.blackbox.jnibox.JniLibrary;
+import org.blackbox.jnibox.JniLibraryLoader;
+import org.blackbox.jnibox.JniRepository;
+import org.blackbox.jnibox.TempDirJniRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+
+public class JniLibraryPostProcessorTest {
+
+    private static final String RESOURCE_PACKAGE = "org.blackbox.jnibox.spring.test";
+
+    @Test
+    public void loadBeforeInstantiation() {
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(TestConfiguration.class, AnnotatedLibraryUser.class)) {
+            JniRepository jniRepository = context.getBean(JniRepository.class);
+            Assert.assertTrue(jniRepository instanceof TempDirJniRepository);
+            Assert.assertEquals(JniLibrary.Status.LOADED, context.getBean("eagerLibraryUser", LibraryUser.class).status);
+            Assert.assertEquals(JniLibrary.Status.LOADED, context.getBean(AnnotatedLibraryUser.class).status);
+
+            // the library of the lazy bean is only declared until the bean is created
+            Assert.assertEquals(JniLibrary.Status.DECLARED, jniRepository.declare(RESOURCE_PACKAGE, "lazyMockLibrary").getStatus());
+            Assert.assertEquals(JniLibrary.Status.LOADED, context.getBean("lazyLibraryUser", LibraryUser.class).status);
+        }
+    }
+
+    @Test
+    public void repositoryConfigurationIsAutowired() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TestConfiguration.class)) {
+            Assert.assertTrue(context.getBean(TestConfiguration.class).autowiredRepository);
+            Assert.assertEquals(JniLibrary.Status.LOADED, context.getBean("eagerLibraryUser", LibraryUser.class).status);
+        }
+    }
+
+    @Test
+    public void missingLibrary() {
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(TestConfiguration.class, MissingLibraryConfiguration.class)) {
+            Assert.fail("The context was created without the library of a bean.");
+        } catch (BeanCreationException e) {
+            Assert.assertEquals("missingLibraryUser", e.getBeanName());
+        }
+    }
+
+    @Configuration
+    @EnableJniBox
+    static class TestConfiguration {
+
+        @Autowired
+        private Environment environment;
+
+        private boolean autowiredRepository;
+
+        @Bean(destroyMethod = "close")
+        public JniRepository jniRepository() {
+            // the repository is created as a regular bean, with its configuration autowired
+            autowiredRepository = environment != null;
+            return new TempDirJniRepository(new IdleJniLibraryLoader());
+        }
+
+        @Bean
+        @RequiresJniLibrary(libraryPackage = RESOURCE_PACKAGE, value = "eagerMockLibrary")
+        public LibraryUser eagerLibraryUser(JniRepository jniRepository) {
+            return new LibraryUser(jniRepository.declare(RESOURCE_PACKAGE, "eagerMockLibrary").getStatus());
+        }
+
+        @Bean
+        @Lazy
+        @RequiresJniLibrary(libraryPackage = RESOURCE_PACKAGE, value = "lazyMockLibrary")
+        public LibraryUser lazyLibraryUser(JniRepository jniRepository) {
+            return new LibraryUser(jniRepository.declare(RESOURCE_PACKAGE, "lazyMockLibrary").getStatus());
+        }
+    }
+
+    @Configuration
+    static class MissingLibraryConfiguration {
+
+        @Bean
+        @RequiresJniLibrary(libraryPackage = RESOURCE_PACKAGE, value = "missingMockLibrary")
+        public LibraryUser missingLibraryUser() {
+            return new LibraryUser(null);
+        }
+    }
+
+    static class LibraryUser {
+
+        final JniLibrary.Status status;
+
+        LibraryUser(JniLibrary.Status status) {
+            this.status = status;
+        }
+    }
+
+    @RequiresJniLibrary(libraryPackage = RESOURCE_PACKAGE, value = "annotatedMockLibrary")
+    static class AnnotatedLibraryUser {
+
+        final JniLibrary.Status status;
+
+        AnnotatedLibraryUser(JniRepository jniRepository) {
+            status = jniRepository.declare(RESOURCE_PACKAGE, "annotatedMockLibrary").getStatus();
+        }
+    }
+
+    private static class IdleJniLibraryLoader implements JniLibraryLoader {
+
+        @Override
+        public void load(String libraryPath) {
+            // do nothing, it is mocked
+        }
+    }
+}